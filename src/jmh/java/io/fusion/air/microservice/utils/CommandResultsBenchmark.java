@@ -0,0 +1,151 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils;
+
+import io.fusion.air.microservice.domain.core.CommandResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command Results JSON - The Hand Built StringBuilder JSON (Baseline) vs the Streaming
+ * Generator for 1 KB, 1 MB and 100 MB Outputs.
+ *
+ * - handBuilt     : Old toJSONString (SimpleDateFormat per Call, split per Line)
+ * - toJSONString  : Same Shape with the Generator (Lines from the Line Index)
+ * - writeJSON     : REST Shape streamed to the Response (Null Stream here)
+ *
+ * mvn -Pjmh clean test-compile exec:exec -Djmh.args="CommandResultsBenchmark -prof gc"
+ *
+ * @author arafkarsh
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CommandResultsBenchmark {
+
+	@Param({ "1024", "1048576", "104857600" })
+	private int outputBytes;
+
+	private CommandResults results;
+	private NullOutputStream sink;
+
+	/**
+	 * Sink for the JSON (Stands in for the HTTP Response Stream)
+	 */
+	static final class NullOutputStream extends OutputStream {
+		private long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+
+		long getBytes() {
+			return bytes;
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		results = sampleResults(outputBytes);
+		sink = new NullOutputStream();
+	}
+
+	@Benchmark
+	public String handBuilt() {
+		return handBuiltJSON(results);
+	}
+
+	@Benchmark
+	public String toJSONString() {
+		return results.toJSONString();
+	}
+
+	@Benchmark
+	public long writeJSON() throws IOException {
+		results.writeJSON(sink);
+		return sink.getBytes();
+	}
+
+	/**
+	 * Returns Command Results with an Output of the Size (80 Char Lines)
+	 * @param _bytes
+	 * @return
+	 */
+	static CommandResults sampleResults(int _bytes) {
+		byte[] output = new byte[_bytes];
+		for(int x = 0; x < _bytes; x++) {
+			output[x] = (x % 80 == 79) ? (byte) '\n' : (byte) ('a' + (x % 26));
+		}
+		return new CommandResults("localhost", "cat /var/log/syslog", output, "", 0, new Date(), null);
+	}
+
+	/**
+	 * The Hand Built JSON (StringBuilder + SimpleDateFormat per Call + split per Line)
+	 * Kept here as the Baseline.
+	 *
+	 * @param _results
+	 * @return
+	 */
+	static String handBuiltJSON(CommandResults _results) {
+		StringBuilder sb = new StringBuilder();
+		String isoDt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mmZ").format(_results.getStartTime());
+		sb.append("{");
+		sb.append("\"date\": \"").append(isoDt).append("\",");
+		sb.append("\"host\": \"").append(_results.getHost()).append("\",");
+		sb.append("\"command\": \"").append(_results.getCommand()).append("\",");
+		String[] lines = _results.getResult().split("\\R");
+		sb.append("\"result\":[");
+		int x=1;
+		for(String line : lines) {
+			sb.append("\"").append(line).append("\"");
+			if(x < lines.length) {
+				sb.append(",");
+			}
+			x++;
+		}
+		sb.append("],");
+		sb.append("\"error\": \"").append(_results.getError()).append("\",");
+		sb.append("\"exitCode\": ").append(_results.getExitCode()).append(",");
+		sb.append("\"timeTaken\": ").append(_results.getElapsedTime());
+		sb.append("}");
+		return sb.toString();
+	}
+}
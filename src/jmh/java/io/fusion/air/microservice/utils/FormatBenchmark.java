@@ -0,0 +1,93 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.fusion.air.microservice.domain.core.CommandResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response Formats - JSON vs CBOR vs Smile for the Command Results (1 KB, 1 MB and 100 MB
+ * Outputs) with the Mappers of JsonMappers.
+ *
+ * - encode : Streamed to the Response (Null Stream here), as the Fleet Stream does
+ * - decode : readTree of the encoded Bytes (What a Client does)
+ *
+ * The Payload Sizes are printed at the Setup.
+ *
+ * mvn -Pjmh clean test-compile exec:exec -Djmh.args="FormatBenchmark -prof gc"
+ *
+ * @author arafkarsh
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FormatBenchmark {
+
+	@Param({ "1024", "1048576", "104857600" })
+	private int outputBytes;
+
+	@Param({ "JSON", "CBOR", "Smile" })
+	private String format;
+
+	private CommandResults results;
+	private ObjectMapper mapper;
+	private ObjectWriter writer;
+	private byte[] encoded;
+	private CommandResultsBenchmark.NullOutputStream sink;
+
+	@Setup
+	public void setUp() throws IOException {
+		results = CommandResultsBenchmark.sampleResults(outputBytes);
+		mapper = "CBOR".equals(format) ? JsonMappers.cborMapper()
+				: "Smile".equals(format) ? JsonMappers.smileMapper()
+				: JsonMappers.mapper();
+		writer = mapper.writerFor(CommandResults.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		encoded = writer.writeValueAsBytes(results);
+		sink = new CommandResultsBenchmark.NullOutputStream();
+		System.out.println(format+" Payload for "+outputBytes+" Bytes Output = "+encoded.length+" Bytes");
+	}
+
+	@Benchmark
+	public long encode() throws IOException {
+		writer.writeValue(sink, results);
+		return sink.getBytes();
+	}
+
+	@Benchmark
+	public Object decode() throws IOException {
+		return mapper.readTree(encoded);
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import io.fusion.air.microservice.domain.models.CardDetails;
+import io.fusion.air.microservice.domain.models.CardType;
+import io.fusion.air.microservice.domain.models.PaymentDetails;
+import io.fusion.air.microservice.domain.models.PaymentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object Mapper - New Mapper per Call (Old Utils.toJsonString) vs the Shared Mapper vs
+ * the Cached Writer, and the Shared Mapper + Afterburner (Bytecode Accessors, the
+ * Module for Java 8. Blackbird needs Java 11+ for its Lambda Accessors to pay off).
+ *
+ * The Mappers have the Settings of JsonMappers. Afterburner is on the Benchmark Class
+ * Path only, so it's kept out of the Module Scan (JsonMappers would pick it up here).
+ *
+ * mvn -Pjmh clean test-compile exec:exec -Djmh.args="JsonMapperBenchmark -prof gc"
+ *
+ * @author arafkarsh
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMapperBenchmark {
+
+	@Param({ "PaymentDetails", "CommandResults" })
+	private String type;
+
+	private Object value;
+	private ObjectMapper shared;
+	private ObjectWriter writer;
+	private ObjectMapper afterburner;
+
+	@Setup
+	public void setUp() {
+		value = "PaymentDetails".equals(type)
+				? new PaymentDetails("TX-1001", LocalDateTime.now(), 1299.50, PaymentType.CREDIT_CARD,
+						new CardDetails("4111111111111111", "John Doe", 12, 2030, 123, CardType.VISA))
+				: CommandResultsBenchmark.sampleResults(1024);
+		shared = serviceMapper();
+		writer = shared.writerFor(value.getClass());
+		afterburner = serviceMapper().registerModule(new AfterburnerModule());
+	}
+
+	@Benchmark
+	public byte[] newMapper() throws IOException {
+		return serviceMapper().writeValueAsBytes(value);
+	}
+
+	@Benchmark
+	public byte[] sharedMapper() throws IOException {
+		return shared.writeValueAsBytes(value);
+	}
+
+	@Benchmark
+	public byte[] cachedWriter() throws IOException {
+		return writer.writeValueAsBytes(value);
+	}
+
+	@Benchmark
+	public byte[] afterburner() throws IOException {
+		return afterburner.writeValueAsBytes(value);
+	}
+
+	/**
+	 * New Mapper with the JsonMappers Settings (Module Scan without Afterburner)
+	 * @return
+	 */
+	private static ObjectMapper serviceMapper() {
+		ObjectMapper mapper = new ObjectMapper()
+				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		for(Module module : ObjectMapper.findModules()) {
+			if(!(module instanceof AfterburnerModule)) {
+				mapper.registerModule(module);
+			}
+		}
+		return mapper;
+	}
+}
@@ -19,8 +19,26 @@ import javax.annotation.PostConstruct;
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.http.HttpServletRequest;
 
+import io.fusion.air.microservice.domain.core.CapturePolicy;
+import io.fusion.air.microservice.domain.core.CommandCoalescer;
+import io.fusion.air.microservice.domain.core.CommandResults;
+import io.fusion.air.microservice.domain.core.ExecMode;
+import io.fusion.air.microservice.domain.core.FleetExecutor;
+import io.fusion.air.microservice.domain.core.HostScheduler;
+import io.fusion.air.microservice.domain.core.JobRegistry;
+import io.fusion.air.microservice.domain.core.ResultCache;
+import io.fusion.air.microservice.domain.core.SSHEngine;
+import io.fusion.air.microservice.domain.core.SSHSessionPool;
+import io.fusion.air.microservice.domain.core.ShellSessionRegistry;
+import io.fusion.air.microservice.domain.core.SpoolPolicy;
+import io.fusion.air.microservice.domain.core.Target;
+import io.fusion.air.microservice.domain.core.TargetInventory;
+import io.fusion.air.microservice.domain.core.TerminalRegistry;
+import io.fusion.air.microservice.server.config.ConfigMap;
 import io.fusion.air.microservice.server.config.ServiceConfiguration;
 import io.fusion.air.microservice.server.controller.HealthController;
+import io.fusion.air.microservice.utils.HashedWheelTimer;
+import io.fusion.air.microservice.utils.JsonMappers;
 import io.swagger.v3.oas.models.info.Contact;
 import org.slf4j.Logger;
 import org.springdoc.core.GroupedOpenApi;
@@ -35,13 +53,14 @@ import org.springframework.boot.web.servlet.ServletComponentScan;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.util.unit.DataSize;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.models.ExternalDocumentation;
@@ -49,7 +68,12 @@ import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.License;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.invoke.MethodHandles.lookup;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -260,15 +284,177 @@ public class ServiceBootStrap {
 	}
 
 	/**
-	 * Returns the Object Mapper
+	 * Returns the Shared SSH Engine
+	 * One SshClient (NIO2 Reactor + IO Workers) for the life of the Service.
 	 * @return
 	 */
+	@Bean(destroyMethod = "stop")
+	public SSHEngine sshEngine() {
+		SSHEngine engine = new SSHEngine(serviceConfig.getSshNioWorkers(), serviceConfig.getSshWindowKiloBytes() * 1024);
+		engine.start();
+		return engine;
+	}
+
+	/**
+	 * Returns the SSH Session Pool
+	 * Authenticated Sessions keyed by (user, host, port, credential)
+	 * @return
+	 */
+	@Bean(destroyMethod = "close")
+	public SSHSessionPool sshSessionPool(SSHEngine sshEngine) {
+		return new SSHSessionPool(sshEngine,
+				serviceConfig.getSshPoolMaxPerKey(), serviceConfig.getSshPoolMaxTotal(),
+				serviceConfig.getSshPoolIdleSeconds(), serviceConfig.getSshPoolMaxLifetimeSeconds(),
+				serviceConfig.getSshPoolKeepAliveSeconds());
+	}
+
+	/**
+	 * Returns the Host Scheduler (Per Host Admission in front of the SSH Sessions)
+	 * @return
+	 */
+	@Bean
+	public HostScheduler hostScheduler() {
+		return new HostScheduler(serviceConfig.getSshSchedulerMaxPerHost(), serviceConfig.getSshSchedulerMaxTotal(),
+				serviceConfig.getSshSchedulerMaxWaitMillis());
+	}
+
+	/**
+	 * Returns the Hashed Wheel Timer for Idle Expiry and TTL Eviction
+	 * 100 ms Ticks x 512 Buckets
+	 * @return
+	 */
+	@Bean(destroyMethod = "stop")
+	public HashedWheelTimer hashedWheelTimer() {
+		return new HashedWheelTimer("ssh-wheel-timer", 100, TimeUnit.MILLISECONDS, 512);
+	}
+
+	/**
+	 * Returns the Capture Policy (Head + Tail of the Output kept per Command)
+	 * @return
+	 */
+	@Bean
+	public CapturePolicy capturePolicy() {
+		return new CapturePolicy(serviceConfig.getSshCaptureHeadKiloBytes() * 1024,
+				serviceConfig.getSshCaptureTailKiloBytes() * 1024, serviceConfig.getSshCapturePoolSize());
+	}
+
+	/**
+	 * Returns the Named Shell Session Registry
+	 * @return
+	 */
+	@Bean(destroyMethod = "close")
+	public ShellSessionRegistry shellSessionRegistry(SSHSessionPool sshSessionPool, HashedWheelTimer hashedWheelTimer,
+													 CapturePolicy capturePolicy) {
+		return new ShellSessionRegistry(sshSessionPool, hashedWheelTimer,
+				serviceConfig.getSshShellIdleSeconds(), serviceConfig.getSshShellMaxSessions(), capturePolicy);
+	}
+
+	/**
+	 * Returns the Terminal Registry (WebSocket Terminals)
+	 * @return
+	 */
+	@Bean(destroyMethod = "close")
+	public TerminalRegistry terminalRegistry(SSHSessionPool sshSessionPool) {
+		return new TerminalRegistry(sshSessionPool, serviceConfig.getSshTerminalMaxSessions(),
+				serviceConfig.getSshTerminalPtyType());
+	}
+
+	/**
+	 * Returns the Asynchronous Command Job Registry
+	 * @return
+	 */
+	@Bean(destroyMethod = "close")
+	public JobRegistry jobRegistry(HashedWheelTimer hashedWheelTimer, SpoolPolicy spoolPolicy) {
+		return new JobRegistry(hashedWheelTimer, serviceConfig.getSshJobsThreads(),
+				serviceConfig.getSshJobsQueueSize(), serviceConfig.getSshJobsTtlSeconds(), spoolPolicy);
+	}
+
+	/**
+	 * Returns the Spool Policy (Full Output of the Jobs, spills to Disk)
+	 * @return
+	 */
+	@Bean
+	public SpoolPolicy spoolPolicy() {
+		return new SpoolPolicy(serviceConfig.getSshSpoolDirectory(), serviceConfig.getSshSpoolMemoryKiloBytes() * 1024,
+				serviceConfig.getSshSpoolMaxMegaBytes() * 1024L * 1024L);
+	}
+
+	/**
+	 * Returns the Fleet Executor (Command Fan Out across Hosts)
+	 * @return
+	 */
+	@Bean(destroyMethod = "close")
+	public FleetExecutor fleetExecutor(HashedWheelTimer hashedWheelTimer) {
+		return new FleetExecutor(hashedWheelTimer, serviceConfig.getSshFleetThreads());
+	}
+
+	/**
+	 * Returns the Target Inventory
+	 * The Configured Host (ssh.host) is the Default Target.
+	 * @return
+	 */
+	@Bean
+	public TargetInventory targetInventory() {
+		Target defaultTarget = new Target(serviceConfig.getSshHost(), serviceConfig.getSshHost(),
+				serviceConfig.getSshPort(), serviceConfig.getSshUser(), serviceConfig.getSshPassword(),
+				Collections.<String>emptySet(), Collections.<String>emptySet(),
+				serviceConfig.getSshTimeoutSeconds(), ExecMode.valueOf(serviceConfig.getSshExecMode().toUpperCase()));
+		TargetInventory inventory = new TargetInventory(serviceConfig.getSshInventoryFile(), defaultTarget);
+		try {
+			inventory.reload();
+		} catch (IOException e) {
+			log.error("Unable to load the Inventory "+serviceConfig.getSshInventoryFile()+" : "+e.getMessage());
+		}
+		return inventory;
+	}
+
+	/**
+	 * Returns the Command Coalescer (Single Flight for the Commands safe to share)
+	 * @return
+	 */
+	@Bean
+	public CommandCoalescer commandCoalescer() {
+		return new CommandCoalescer(serviceConfig.getSshCoalesceCommands());
+	}
 
+	/**
+	 * Returns the Result Cache for the Idempotent Commands
+	 * @return
+	 */
+	@Bean
+	public ResultCache resultCache() {
+		return new ResultCache(serviceConfig.getSshCacheCommands(), serviceConfig.getSshCacheMaxKiloBytes());
+	}
+
+	/**
+	 * Returns the Shared Object Mapper (Also used by Spring MVC) with the Writers for
+	 * the Response Types resolved at the Start
+	 * @return
+	 */
 	@Bean
 	public ObjectMapper objectMapper() {
-		return new ObjectMapper()
-				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-				.findAndRegisterModules();
+		JsonMappers.warmUp(CommandResults.class, HashMap.class, ArrayList.class, ConfigMap.class);
+		return JsonMappers.mapper();
+	}
+
+	/**
+	 * CBOR (application/cbor) Response on the Accept Header - Replaces the Default
+	 * Converter, so the Shared CBOR Mapper is used
+	 * @return
+	 */
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+		return new MappingJackson2CborHttpMessageConverter(JsonMappers.cborMapper());
+	}
+
+	/**
+	 * Smile (application/x-jackson-smile) Response on the Accept Header - Replaces the
+	 * Default Converter, so the Shared Smile Mapper is used
+	 * @return
+	 */
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+		return new MappingJackson2SmileHttpMessageConverter(JsonMappers.smileMapper());
 	}
 
 
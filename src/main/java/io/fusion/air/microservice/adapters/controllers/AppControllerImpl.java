@@ -15,13 +15,29 @@
  */
 package io.fusion.air.microservice.adapters.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.fusion.air.microservice.domain.core.CommandCoalescer;
+import io.fusion.air.microservice.domain.core.CommandJob;
 import io.fusion.air.microservice.domain.core.CommandResults;
-import io.fusion.air.microservice.domain.core.SSHClient;
+import io.fusion.air.microservice.domain.core.HostScheduler;
+import io.fusion.air.microservice.domain.core.JobState;
+import io.fusion.air.microservice.domain.core.OutputSpool;
+import io.fusion.air.microservice.domain.core.ResultCache;
+import io.fusion.air.microservice.domain.core.SSHSessionPool;
+import io.fusion.air.microservice.domain.core.ShellSession;
+import io.fusion.air.microservice.domain.core.ShellSessionRegistry;
+import io.fusion.air.microservice.domain.core.Target;
+import io.fusion.air.microservice.domain.core.TargetInventory;
+import io.fusion.air.microservice.domain.models.CommandBatch;
 import io.fusion.air.microservice.domain.models.PaymentDetails;
+import io.fusion.air.microservice.domain.services.AppService;
 import io.fusion.air.microservice.domain.models.PaymentStatus;
 import io.fusion.air.microservice.domain.models.PaymentType;
+import io.fusion.air.microservice.domain.models.Workflow;
 import io.fusion.air.microservice.server.config.ServiceConfiguration;
 import io.fusion.air.microservice.server.controller.AbstractController;
+import io.fusion.air.microservice.utils.JsonMappers;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -30,17 +46,32 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import static java.lang.invoke.MethodHandles.lookup;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -62,30 +93,217 @@ public class AppControllerImpl extends AbstractController {
 
 	// Set Logger -> Lookup will automatically determine the class name.
 	private static final Logger log = getLogger(lookup().lookupClass());
+
+	// Binary Formats on the Accept Header (The Output is carried as raw Bytes)
+	private static final String SMILE = "application/x-jackson-smile";
+	private static final String CBOR_SEQ = "application/cbor-seq";
+	private static final String NDJSON = "application/x-ndjson";
+	// Caller of the Command (Fair Share Key of the Host Scheduler)
+	private static final String TENANT = "X-Tenant";
+	// API Docs of the Sync Command Endpoints
+	private static final String SYNC_DISCONNECT = "The Result is sent when the Commands are done. A Client "
+			+ "Disconnect doesn't stop them, they run till they end or time out. The streamed Endpoints "
+			+ "(/stream/command, /fleet/command, POST /commands) stop on a Disconnect, and an /async/command "
+			+ "Job stops on DELETE /cancel.";
 	
 	@Autowired
 	private ServiceConfiguration serviceConfig;
 	private String serviceName;
 
+	@Autowired
+	private AppService appService;
+
+	@Autowired
+	private SSHSessionPool sshSessionPool;
+
+	@Autowired
+	private ShellSessionRegistry shellSessionRegistry;
+
+	@Autowired
+	private TargetInventory targetInventory;
+
+	@Autowired
+	private CommandCoalescer commandCoalescer;
+
+	@Autowired
+	private ResultCache resultCache;
+
+	@Autowired
+	private HostScheduler hostScheduler;
+
 	/**
 	 * Command Status
+	 * With wait (ms) the Request is parked (without holding a Servlet Thread) till
+	 * the Job changes its State or the wait is over.
 	 * 
 	 * @return
 	 */
-    @Operation(summary = "Check the Command status")
+    @Operation(summary = "Check the Command status (Long Poll with wait=ms)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
             description = "Command Status Check",
-            content = {@Content(mediaType = "application/json")}),
+            content = {@Content(mediaType = "application/json"),
+						@Content(mediaType = "application/cbor"),
+						@Content(mediaType = SMILE)}),
             @ApiResponse(responseCode = "404",
             description = "Invalid Command Reference No.",
             content = @Content)
     })
-	@GetMapping("/status/{referenceNo}")
+	@GetMapping(value = "/status/{referenceNo}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE })
 	@ResponseBody
-	public ResponseEntity<Map<String,Object>> getStatus(@PathVariable("referenceNo") String _referenceNo,
-														HttpServletRequest request) throws Exception {
+	public DeferredResult<ResponseEntity<Map<String,Object>>> getStatus(@PathVariable("referenceNo") String _referenceNo,
+			@RequestParam(value = "wait", required = false, defaultValue = "0") long _waitMillis,
+			HttpServletRequest request) throws Exception {
 		log.info("|"+name()+"|Request to Command Status of Service... ");
+		CommandJob job = appService.getJob(_referenceNo);
+		if(job != null) {
+			long waitMillis = Math.min(_waitMillis, serviceConfig.getSshStatusMaxWaitMillis());
+			JobState seen = job.getState();
+			if(waitMillis <= 0 || seen.isTerminal()) {
+				return deferred(jobStatus(job));
+			}
+			DeferredResult<ResponseEntity<Map<String,Object>>> result =
+					new DeferredResult<ResponseEntity<Map<String,Object>>>(waitMillis);
+			result.onTimeout(() -> result.setResult(jobStatus(job)));
+			job.whenChangedFrom(seen).thenRun(() -> result.setResult(jobStatus(job)));
+			return result;
+		}
+		return deferred(getSessionStatus(_referenceNo));
+	}
+
+	/**
+	 * Returns the Full Output of the Job (Line Range or Byte Range)
+	 * Lines are served from the Memory Buffer or the Memory Mapped Spill File, so any
+	 * Range of a large Output is served without loading it. Works while the Job is
+	 * running (up to the Lines written so far). A single Byte Range on the Range Header
+	 * (Ex. bytes=0-1023, bytes=1024-, bytes=-500) is served as 206 and takes precedence
+	 * over the Lines, other Range Headers are ignored.
+	 */
+	@Operation(summary = "Get the Job Output (Lines fromLine to toLine, 1 based and inclusive, or Range: bytes=)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Job Output",
+					content = {@Content(mediaType = "text/plain")}),
+			@ApiResponse(responseCode = "206",
+					description = "Job Output (Byte Range)",
+					content = {@Content(mediaType = "text/plain")}),
+			@ApiResponse(responseCode = "400",
+					description = "Invalid Line Range",
+					content = @Content),
+			@ApiResponse(responseCode = "404",
+					description = "Invalid Command Reference No. or the Output is not available",
+					content = @Content),
+			@ApiResponse(responseCode = "416",
+					description = "Byte Range not satisfiable",
+					content = @Content)
+	})
+	@GetMapping("/result/{referenceNo}")
+	public ResponseEntity<StreamingResponseBody> getResult(@PathVariable("referenceNo") String _referenceNo,
+			@RequestParam(value = "fromLine", defaultValue = "1") long _fromLine,
+			@RequestParam(value = "toLine", required = false) Long _toLine,
+			@RequestHeader(value = HttpHeaders.RANGE, required = false) String _range) {
+		log.info("|"+name()+"|Request to Job Output "+_referenceNo+" Lines "+_fromLine+" - "+_toLine
+				+((_range == null) ? "" : " Range "+_range));
+		CommandJob job = appService.getJob(_referenceNo);
+		OutputSpool spool = (job == null) ? null : job.getOutput();
+		if(spool == null) {
+			return ResponseEntity.notFound().build();
+		}
+		long size = spool.getSize();
+		List<HttpRange> ranges = parseRanges(_range);
+		if(ranges.size() == 1) {
+			long from = -1;
+			long to = -1;
+			try {
+				from = ranges.get(0).getRangeStart(size);
+				to = ranges.get(0).getRangeEnd(size) + 1;
+			} catch (IllegalArgumentException e) {
+				log.info("|"+name()+"|Range "+_range+" not satisfiable: "+e.getMessage());
+			}
+			if(from < 0 || to <= from) {
+				return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+						.header(HttpHeaders.CONTENT_RANGE, "bytes */"+size).build();
+			}
+			long start = from;
+			long end = to;
+			StreamingResponseBody body = out -> spool.transferTo(start, end, out);
+			return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+					.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+					.header(HttpHeaders.CONTENT_RANGE, "bytes "+start+"-"+(end - 1)+"/"+size)
+					.header("X-Job-State", job.getState().name())
+					.contentLength(end - start)
+					.contentType(MediaType.TEXT_PLAIN)
+					.body(body);
+		}
+		if(_fromLine < 1 || (_toLine != null && _toLine < _fromLine)) {
+			return ResponseEntity.badRequest().build();
+		}
+		long lines = spool.getLineCount();
+		long toLine = (_toLine == null) ? lines : Math.min(_toLine, lines);
+		StreamingResponseBody body = out -> spool.transferLines(_fromLine - 1, toLine, out);
+		return ResponseEntity.ok()
+				.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+				.header("X-Total-Lines", String.valueOf(lines))
+				.header("X-Total-Bytes", String.valueOf(size))
+				.header("X-Job-State", job.getState().name())
+				.contentType(MediaType.TEXT_PLAIN)
+				.body(body);
+	}
+
+	/**
+	 * Parse the Range Header (Empty if there's none or it's not a valid Byte Range)
+	 * @param _range
+	 * @return
+	 */
+	private static List<HttpRange> parseRanges(String _range) {
+		if(_range == null) {
+			return Collections.emptyList();
+		}
+		try {
+			return HttpRange.parseRanges(_range);
+		} catch (IllegalArgumentException e) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Returns the Job Status
+	 * @param _job
+	 * @return
+	 */
+	private ResponseEntity<Map<String,Object>> jobStatus(CommandJob _job) {
+		HashMap<String,Object> status = new HashMap<String,Object>(_job.getStatus());
+		status.put("Code", 200);
+		status.put("Status", true);
+		return ResponseEntity.ok(status);
+	}
+
+	/**
+	 * Returns the Completed Deferred Result
+	 * @param _response
+	 * @return
+	 */
+	private static <T> DeferredResult<T> deferred(T _response) {
+		DeferredResult<T> result = new DeferredResult<T>();
+		result.setResult(_response);
+		return result;
+	}
+
+	/**
+	 * Returns the Shell Session Status
+	 * @param _referenceNo
+	 * @return
+	 */
+	private ResponseEntity<Map<String,Object>> getSessionStatus(String _referenceNo) {
+		ShellSession shell = shellSessionRegistry.get(_referenceNo);
+		if(shell != null) {
+			HashMap<String,Object> status = new HashMap<String,Object>(
+					shell.getStatus(shellSessionRegistry.getIdleMillis()));
+			status.put("Code", 200);
+			status.put("Status", true);
+			return ResponseEntity.ok(status);
+		}
 		HashMap<String,Object> status = new HashMap<String,Object>();
 		status.put("Code", 404);
 		status.put("Status", true);
@@ -96,61 +314,613 @@ public class AppControllerImpl extends AbstractController {
 
 	/**
 	 * Execute SSH Client Command
+	 * The Response is written when the Command is done, so a Client Disconnect is not seen
+	 * and the Command runs till it ends or times out. Use /stream/command (stops on the
+	 * first failed Write) or /async/command + /cancel to stop it early. Tomcat reports a
+	 * Disconnect only on a Write, so a DeferredResult wouldn't see it either.
 	 */
-    @Operation(summary = "Execute SSH Client Command")
+    @Operation(summary = "Execute SSH Client Command",
+			description = SYNC_DISCONNECT)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
             description = "Execute SSH Client Command",
-            content = {@Content(mediaType = "application/json")}),
+            content = {@Content(mediaType = "application/json"),
+						@Content(mediaType = "application/cbor"),
+						@Content(mediaType = SMILE)}),
             @ApiResponse(responseCode = "404",
             description = "Unable to Execute SSH Command",
-            content = @Content)
+            content = @Content),
+			@ApiResponse(responseCode = "400",
+					description = "Target is not in the Inventory",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "429",
+					description = "Host is Busy (No Slot within the Wait Budget)",
+					content = {@Content(mediaType = "application/json")})
     })
-    @PostMapping("/command/{command}")
-    public ResponseEntity<CommandResults> executeCommand(@PathVariable("command") String _command) {
-		log.info("|"+name()+"|Request to execute command = "+_command);
-		SSHClient cl = new SSHClient(serviceConfig.getSshUser(), serviceConfig.getSshPassword(),
-				serviceConfig.getSshHost(), serviceConfig.getSshPort(), 10);
+    @PostMapping(value = "/command/{command}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE })
+    public ResponseEntity<CommandResults> executeCommand(@PathVariable("command") String _command,
+			@RequestParam(value = "target", required = false) String _target,
+			@RequestHeader(value = TENANT, required = false) String _tenant,
+			HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to execute command = "+_command+" on Target = "+_target);
+		CommandResults cr = appService.executeCommand(_command, _target, tenantOf(_tenant, _request));
+		return ResponseEntity.ok(cr);
+    }
+
+	/**
+	 * Execute SSH Client Command and stream the Output (Chunked) as it arrives
+	 * The Output ends with the Status Line: Record Separator (0x1E) + JSON + New Line
+	 * <pre>
+	 * \u001E{"exitCode":0,"error":"","elapsedTime":120}
+	 * </pre>
+	 * JSON escapes the Control Chars, so the Client splits the Body at the last 0x1E.
+	 */
+	@Operation(summary = "Execute SSH Client Command and stream the Output as it arrives",
+			description = "The Output ends with the Status Line: 0x1E (Record Separator) + "
+					+ "{\"exitCode\":0,\"error\":\"\",\"elapsedTime\":120} + New Line")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Command Output (Chunked) + the Status Line (Exit Code, Std Error)",
+					content = {@Content(mediaType = "text/plain")})
+	})
+	@PostMapping("/stream/command/{command}")
+	public ResponseEntity<StreamingResponseBody> streamCommand(@PathVariable("command") String _command,
+			@RequestParam(value = "target", required = false) String _target,
+			@RequestHeader(value = TENANT, required = false) String _tenant,
+			HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to stream command = "+_command+" on Target = "+_target);
+		// Unknown Target = 400 before the Response is committed
+		targetInventory.resolve(_target);
+		// The Body runs on another Thread (the Request isn't usable there)
+		String tenant = tenantOf(_tenant, _request);
+		StreamingResponseBody body = out -> {
+			long startTime = System.currentTimeMillis();
+			CommandResults cr;
+			try {
+				cr = appService.streamCommand(_command, _target, tenant, out);
+			} catch (IOException e) {
+				// SSH Failure - Tell the Client (if it's still there) the Output is incomplete
+				writeStatus(out, null, e.getMessage(), System.currentTimeMillis() - startTime);
+				throw e;
+			}
+			log.info("|"+name()+"|Streamed command = "+_command+" Exit Code = "+cr.getExitCode()
+					+" Time Taken = "+cr.getElapsedTime()+" ms");
+			writeStatus(out, cr.getExitCode(), cr.getError(), cr.getElapsedTime());
+		};
+		return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(body);
+	}
+
+	/**
+	 * Write the Status Line (Record Separator + JSON + New Line) after the streamed Output
+	 * Best effort - the Client may have gone away already.
+	 *
+	 * @param _out
+	 * @param _exitCode (null = Unknown, Ex. the SSH Session failed)
+	 * @param _error Std Error
+	 * @param _elapsedTime
+	 */
+	private void writeStatus(OutputStream _out, Integer _exitCode, String _error, long _elapsedTime) {
+		LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+		status.put("exitCode", _exitCode);
+		status.put("error", (_error == null) ? "" : _error);
+		status.put("elapsedTime", _elapsedTime);
 		try {
-			cl.clientStart();
-			String result = cl.executeCommand(_command);
-			cl.clientStop();
+			_out.write(0x1E);
+			_out.write(JsonMappers.toJsonString(status).getBytes(StandardCharsets.UTF_8));
+			_out.write('\n');
+			_out.flush();
 		} catch (IOException e) {
-			e.printStackTrace();
+			log.warn("|"+name()+"|Unable to write the Status Line: "+e.getMessage());
 		}
-		CommandResults cr = cl.getResultArray().get(0);
-		return ResponseEntity.ok(cr);
-    }
+	}
+
+	/**
+	 * Submit SSH Client Command as an Asynchronous Job
+	 */
+	@Operation(summary = "Submit SSH Client Command (Async) and get the Reference No.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "202",
+					description = "Command Submitted",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "429",
+					description = "Job Queue is Full",
+					content = @Content)
+	})
+	@PostMapping("/async/command/{command}")
+	public ResponseEntity<HashMap<String,Object>> submitCommand(@PathVariable("command") String _command,
+			@RequestParam(value = "target", required = false) String _target,
+			@RequestHeader(value = TENANT, required = false) String _tenant,
+			HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to submit command = "+_command+" on Target = "+_target);
+		try {
+			CommandJob job = appService.submitCommand(_command, _target, tenantOf(_tenant, _request));
+			return ResponseEntity.status(HttpStatus.ACCEPTED)
+					.body(referenceStatus(202, job.getReferenceNo(), "Command Submitted!"));
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.body(referenceStatus(429, null, "Job Queue is Full! Try again later."));
+		}
+	}
+
+	/**
+	 * Submit the Workflow (DAG of Commands across Targets) as an Asynchronous Job
+	 * Ready Nodes run in parallel within the per Host Limit, a failed Node skips the
+	 * Nodes that depend on it. Progress of every Node is in GET /status/{referenceNo}.
+	 */
+	@Operation(summary = "Submit the Workflow (DAG of Commands) and get the Reference No.")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "202",
+					description = "Workflow Submitted",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Invalid Workflow (Duplicate / Unknown Node, Cycle, Blank Command, Target)",
+					content = @Content),
+			@ApiResponse(responseCode = "429",
+					description = "Job Queue is Full",
+					content = @Content)
+	})
+	@PostMapping(value = "/workflow", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<HashMap<String,Object>> submitWorkflow(@RequestBody Workflow _workflow,
+			@RequestHeader(value = TENANT, required = false) String _tenant,
+			HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to submit Workflow = "+_workflow);
+		try {
+			CommandJob job = appService.submitWorkflow(_workflow, tenantOf(_tenant, _request));
+			return ResponseEntity.status(HttpStatus.ACCEPTED)
+					.body(referenceStatus(202, job.getReferenceNo(), "Workflow Submitted!"));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest()
+					.body(referenceStatus(400, null, "Invalid Workflow! "+e.getMessage()));
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.body(referenceStatus(429, null, "Job Queue is Full! Try again later."));
+		}
+	}
 
 	/**
 	 * Execute SSH Client Commands (Multiple)
+	 * Comma separated in the Path. Use POST /commands (JSON Body) for Commands with
+	 * Commas or large Batches. Pipelined = independent Commands run all at once on one
+	 * Session, Bundled = the Commands run as one Script on one Channel (Results in the
+	 * same Order). A Client Disconnect is not seen (See executeCommand).
 	 */
-	@Operation(summary = "Execute SSH Client Multiple Commands")
+	@Operation(summary = "Execute SSH Client Multiple Commands", description = SYNC_DISCONNECT)
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200",
 					description = "Execute SSH Client Multiple Commands",
-					content = {@Content(mediaType = "application/json")}),
+					content = {@Content(mediaType = "application/json"),
+								@Content(mediaType = "application/cbor"),
+								@Content(mediaType = SMILE)}),
 			@ApiResponse(responseCode = "404",
 					description = "Unable to Execute SSH Commands",
-					content = @Content)
+					content = @Content),
+			@ApiResponse(responseCode = "400",
+					description = "Target is not in the Inventory",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "429",
+					description = "Host is Busy (No Slot within the Wait Budget)",
+					content = {@Content(mediaType = "application/json")})
 	})
-	@PostMapping("/commands/{commands}")
-	public ResponseEntity<ArrayList<CommandResults>> executeCommands(@PathVariable("commands") String _command) {
-		log.info("|"+name()+"|Request to execute commands = "+_command);
-		SSHClient cl = new SSHClient(serviceConfig.getSshUser(), serviceConfig.getSshPassword(),
-				serviceConfig.getSshHost(), serviceConfig.getSshPort(), 10);
+	@PostMapping(value = "/commands/{commands}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE })
+	public ResponseEntity<List<CommandResults>> executeCommands(@PathVariable("commands") String _command,
+			@RequestParam(value = "target", required = false) String _target,
+			@RequestParam(value = "pipelined", defaultValue = "false") boolean _pipelined,
+			@RequestParam(value = "bundled", defaultValue = "false") boolean _bundled,
+			@RequestHeader(value = TENANT, required = false) String _tenant,
+			HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to execute commands = "+_command+" on Target = "+_target
+				+" Pipelined = "+_pipelined+" Bundled = "+_bundled);
 		String[] commands = _command.split(",");
-		for(String command : commands) {
+		String tenant = tenantOf(_tenant, _request);
+		return ResponseEntity.ok(_bundled ? appService.executeBundled(commands, _target, tenant)
+				: _pipelined ? appService.executePipelined(commands, _target, tenant)
+				: appService.executeCommands(commands, _target, tenant));
+	}
+
+	/**
+	 * Execute the Command across the Hosts (Fan Out)
+	 * Hosts are Inventory Names, the Selector picks Targets from the
+	 * Inventory (Ex. tag:prod,group:web). Results are streamed as NDJSON (One JSON Line
+	 * per Host) as each Host finishes, or as a CBOR Sequence / Smile Values (Accept
+	 * Header) with the Output as raw Bytes. Any other Accept (Ex. application/json, All Types)
+	 * gets NDJSON, so the Mapping has no produces Condition (No 406).
+	 */
+	@Operation(summary = "Execute the Command across Hosts (Streams NDJSON as each Host finishes)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "One JSON Line (or CBOR / Smile Value) per Host in Completion Order",
+					content = {@Content(mediaType = NDJSON),
+								@Content(mediaType = CBOR_SEQ),
+								@Content(mediaType = SMILE)}),
+			@ApiResponse(responseCode = "400",
+					description = "No Hosts / Selector matched no Targets",
+					content = @Content)
+	})
+	@PostMapping("/fleet/command/{command}")
+	public ResponseEntity<StreamingResponseBody> executeOnHosts(@PathVariable("command") String _command,
+							@RequestParam(value = "hosts", required = false) String _hosts,
+							@RequestParam(value = "selector", required = false) String _selector,
+							@RequestParam(value = "concurrency", defaultValue = "0") int _concurrency,
+							@RequestParam(value = "timeoutSeconds", defaultValue = "0") long _timeoutSeconds,
+							@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String _accept,
+							@RequestHeader(value = TENANT, required = false) String _tenant,
+							HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to execute command = "+_command+" on Hosts = "+_hosts+" Selector = "+_selector);
+		List<Target> targets;
+		try {
+			targets = appService.selectTargets(_hosts, _selector);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+		if(targets.isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		String tenant = tenantOf(_tenant, _request);
+		return streamResults(_accept, sink ->
+				appService.executeOnTargets(_command, targets, tenant, _concurrency, _timeoutSeconds, sink));
+	}
+
+	/**
+	 * Execute the Batch (JSON Body) - Commands run in order on every Target and the
+	 * Targets run in parallel. Results are streamed as NDJSON (One JSON Line per
+	 * Command) as each Command finishes, or as a CBOR Sequence / Smile Values (Accept
+	 * Header, NDJSON for any other Accept). No Targets / Selector = Configured Host.
+	 */
+	@Operation(summary = "Execute the Batch of Commands (Streams NDJSON as each Command finishes)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "One JSON Line (or CBOR / Smile Value) per Command in Completion Order",
+					content = {@Content(mediaType = NDJSON),
+								@Content(mediaType = CBOR_SEQ),
+								@Content(mediaType = SMILE)}),
+			@ApiResponse(responseCode = "400",
+					description = "No Commands / Blank Command / Pipelined + Bundled / Selector matched no Targets",
+					content = @Content)
+	})
+	@PostMapping(value = "/commands", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> executeBatch(@RequestBody CommandBatch _batch,
+							@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String _accept,
+							@RequestHeader(value = TENANT, required = false) String _tenant,
+							HttpServletRequest _request) {
+		log.info("|"+name()+"|Request to execute Batch = "+_batch);
+		if(!_batch.isValid()) {
+			return ResponseEntity.badRequest().build();
+		}
+		List<String> hosts = (_batch.getTargets() == null) ? new ArrayList<String>() : _batch.getTargets();
+		String selector = _batch.getSelector();
+		List<Target> targets;
+		try {
+			if(hosts.isEmpty() && (selector == null || selector.trim().isEmpty())) {
+				targets = Collections.singletonList(targetInventory.resolve(null));
+			} else {
+				targets = appService.selectTargets(String.join(",", hosts), selector);
+			}
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+		if(targets.isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		String tenant = tenantOf(_tenant, _request);
+		return streamResults(_accept, sink -> appService.executeBatch(_batch, targets, tenant, sink));
+	}
+
+	/**
+	 * Returns the Tenant of the Caller - Waiters for a busy Host get the Slots Round Robin
+	 * across the Tenants. X-Tenant Header, else the Authenticated User, else the Client
+	 * Address (All the Requests share the SSH User of the Target, so it can't be the Key).
+	 *
+	 * @param _tenant X-Tenant Header
+	 * @param _request
+	 * @return
+	 */
+	private static String tenantOf(String _tenant, HttpServletRequest _request) {
+		if(_tenant != null && !_tenant.trim().isEmpty()) {
+			return _tenant.trim();
+		}
+		if(_request.getUserPrincipal() != null) {
+			return _request.getUserPrincipal().getName();
+		}
+		return _request.getRemoteAddr();
+	}
+
+	/**
+	 * Produces the Results for the Sink (Ex. Fan Out, Batch)
+	 */
+	@FunctionalInterface
+	private interface ResultSource {
+		void run(Consumer<CommandResults> _sink) throws InterruptedException;
+	}
+
+	/**
+	 * Stream the Results as NDJSON, CBOR Sequence or Smile Values (Accept Header)
+	 * Each Result is flushed as it arrives. If the Client goes away the Source is stopped.
+	 *
+	 * @param _accept
+	 * @param _source
+	 * @return
+	 */
+	private ResponseEntity<StreamingResponseBody> streamResults(String _accept, ResultSource _source) {
+		// Binary Values are self delimiting, JSON needs the New Line
+		String format = (_accept == null) ? NDJSON
+				: _accept.contains(CBOR_SEQ) ? CBOR_SEQ
+				: _accept.contains(SMILE) ? SMILE : NDJSON;
+		ObjectWriter streamWriter = CBOR_SEQ.equals(format)
+				? JsonMappers.cborMapper().writerFor(CommandResults.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				: SMILE.equals(format)
+				? JsonMappers.smileMapper().writerFor(CommandResults.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				: JsonMappers.streamWriterFor(CommandResults.class);
+		StreamingResponseBody body = out -> {
 			try {
-				cl.clientStart();
-				String result = cl.executeCommand(command);
-				cl.clientStop();
-			} catch (IOException e) {
-				e.printStackTrace();
+				_source.run(result -> {
+					try {
+						streamWriter.writeValue(out, result);
+						if(NDJSON.equals(format)) {
+							out.write('\n');
+						}
+						out.flush();
+					} catch (IOException e) {
+						// Client went away - stops the Source
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Execution Interrupted");
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(format)).body(body);
+	}
+
+	/**
+	 * SSH Session Pool Stats
+	 */
+	@Operation(summary = "SSH Session Pool Stats (Hits / Misses)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "SSH Session Pool Stats",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/pool/stats")
+	public ResponseEntity<Map<String,Object>> poolStats() {
+		log.info("|"+name()+"|Request to SSH Session Pool Stats... ");
+		return ResponseEntity.ok(sshSessionPool.getStats());
+	}
+	/**
+	 * Command Coalescer Stats
+	 */
+	@Operation(summary = "Command Coalescer Stats (Executions / Coalesced Requests)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Command Coalescer Stats",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/coalescer/stats")
+	public ResponseEntity<Map<String,Object>> coalescerStats() {
+		log.info("|"+name()+"|Request to Command Coalescer Stats... ");
+		return ResponseEntity.ok(commandCoalescer.getStats());
+	}
+
+	/**
+	 * Result Cache Stats
+	 */
+	@Operation(summary = "Result Cache Stats (Hits / Misses / Evictions)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Result Cache Stats",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/cache/stats")
+	public ResponseEntity<Map<String,Object>> cacheStats() {
+		log.info("|"+name()+"|Request to Result Cache Stats... ");
+		return ResponseEntity.ok(resultCache.getStats());
+	}
+
+	/**
+	 * Host Scheduler Stats
+	 */
+	@Operation(summary = "Host Scheduler Stats (Queue Depth and Wait Time Histograms per Host)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Host Scheduler Stats",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/scheduler/stats")
+	public ResponseEntity<Map<String,Object>> schedulerStats() {
+		log.info("|"+name()+"|Request to Host Scheduler Stats... ");
+		return ResponseEntity.ok(hostScheduler.getStats());
+	}
+
+	/**
+	 * Invalidate the Cached Command Results
+	 */
+	@Operation(summary = "Invalidate the Cached Command Results (by Target and / or Command)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Cached Results Invalidated",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@DeleteMapping("/cache")
+	public ResponseEntity<HashMap<String,Object>> invalidateCache(
+			@RequestParam(value = "target", required = false) String _target,
+			@RequestParam(value = "command", required = false) String _command) {
+		log.info("|"+name()+"|Request to Invalidate the Cached Results... Target = "+_target+" Command = "+_command);
+		int removed = appService.invalidateResults(_target, _command);
+		return ResponseEntity.ok(referenceStatus(200, null, "Cached Results Invalidated = "+removed));
+	}
+
+	/**
+	 * Target Inventory Stats or the Targets matching the Selector
+	 */
+	@Operation(summary = "Target Inventory (Stats or the Targets matching the Selector)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Target Inventory",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/inventory")
+	public ResponseEntity<Map<String,Object>> inventory(
+			@RequestParam(value = "selector", required = false) String _selector) {
+		log.info("|"+name()+"|Request to Target Inventory... "+_selector);
+		HashMap<String,Object> inventory = new HashMap<String,Object>(targetInventory.getStats());
+		if(_selector != null) {
+			List<Map<String,Object>> targets = new ArrayList<Map<String,Object>>();
+			for(Target target : targetInventory.select(_selector)) {
+				targets.add(target.getDetails());
 			}
+			inventory.put("selector", _selector);
+			inventory.put("selected", targets);
 		}
-		return ResponseEntity.ok(cl.getResultArray());
+		return ResponseEntity.ok(inventory);
 	}
+
+	/**
+	 * Reload the Target Inventory
+	 */
+	@Operation(summary = "Reload the Target Inventory File")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Target Inventory Reloaded",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "404",
+					description = "Unable to Reload the Target Inventory",
+					content = @Content)
+	})
+	@PostMapping("/inventory/reload")
+	public ResponseEntity<HashMap<String,Object>> reloadInventory() {
+		log.info("|"+name()+"|Request to Reload the Target Inventory... ");
+		try {
+			int targets = targetInventory.reload();
+			return ResponseEntity.ok(referenceStatus(200, null, "Target Inventory Reloaded! Targets = "+targets));
+		} catch (IOException e) {
+			log.error("|"+name()+"|Unable to Reload the Target Inventory: "+e.getMessage());
+			return ResponseEntity.ok(referenceStatus(404, null, "Unable to Reload the Target Inventory! "+e.getMessage()));
+		}
+	}
+
+	/**
+	 * Open a Named Shell Session
+	 */
+	@Operation(summary = "Open a Shell Session (Working Dir & Env carry over between Commands)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Shell Session Opened",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "404",
+					description = "Unable to Open the Shell Session",
+					content = @Content)
+	})
+	@PostMapping("/shell")
+	public ResponseEntity<HashMap<String,Object>> openShell(
+			@RequestParam(value = "target", required = false) String _target) {
+		log.info("|"+name()+"|Request to Open a Shell Session... "+_target);
+		try {
+			Target target = targetInventory.resolve(_target);
+			ShellSession shell = shellSessionRegistry.open(target.getUser(), target.getPassword(),
+					target.getHost(), target.getPort(), target.getTimeoutSeconds());
+			return ResponseEntity.ok(referenceStatus(200, shell.getReferenceNo(), "Shell Session Opened!"));
+		} catch (IOException | IllegalArgumentException e) {
+			log.error("|"+name()+"|Unable to Open the Shell Session: "+e.getMessage());
+			return ResponseEntity.ok(referenceStatus(404, null, "Unable to Open the Shell Session! "+e.getMessage()));
+		}
+	}
+
+	/**
+	 * Execute the Command in the Named Shell Session
+	 */
+	@Operation(summary = "Execute the Command in the Shell Session")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Execute the Command in the Shell Session",
+					content = {@Content(mediaType = "application/json"),
+								@Content(mediaType = "application/cbor"),
+								@Content(mediaType = SMILE)}),
+			@ApiResponse(responseCode = "404",
+					description = "Invalid Shell Session Reference No.",
+					content = @Content)
+	})
+	@PostMapping(value = "/shell/{referenceNo}/command/{command}",
+			produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, SMILE })
+	public ResponseEntity<CommandResults> executeShellCommand(@PathVariable("referenceNo") String _referenceNo,
+															  @PathVariable("command") String _command) {
+		log.info("|"+name()+"|Request to execute Shell Session command = "+_command);
+		ShellSession shell = shellSessionRegistry.get(_referenceNo);
+		if(shell == null) {
+			return ResponseEntity.notFound().build();
+		}
+		try {
+			return ResponseEntity.ok(shell.execute(_command));
+		} catch (IOException e) {
+			log.error("|"+name()+"|Shell Session "+_referenceNo+" failed: "+e.getMessage());
+			shellSessionRegistry.close(_referenceNo);
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+	/**
+	 * Close the Named Shell Session
+	 */
+	@Operation(summary = "Close the Shell Session")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Shell Session Closed",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "404",
+					description = "Invalid Shell Session Reference No.",
+					content = @Content)
+	})
+	@DeleteMapping("/shell/{referenceNo}")
+	public ResponseEntity<HashMap<String,Object>> closeShell(@PathVariable("referenceNo") String _referenceNo) {
+		log.info("|"+name()+"|Request to Close the Shell Session... "+_referenceNo);
+		return ResponseEntity.ok(shellSessionRegistry.close(_referenceNo)
+				? referenceStatus(200, _referenceNo, "Shell Session Closed!")
+				: referenceStatus(404, _referenceNo, "Invalid Shell Session Reference No.!"));
+	}
+
+	/**
+	 * Invalid Request (Ex. the Target is not in the Inventory)
+	 * @param _e
+	 * @return
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<HashMap<String,Object>> badRequest(IllegalArgumentException _e) {
+		log.warn("|"+name()+"|"+_e.getMessage());
+		return ResponseEntity.badRequest().body(referenceStatus(400, null, _e.getMessage()));
+	}
+
+	/**
+	 * Host is Busy beyond the Wait Budget of the Host Scheduler
+	 * @param _e
+	 * @return
+	 */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<HashMap<String,Object>> hostBusy(RejectedExecutionException _e) {
+		log.warn("|"+name()+"|"+_e.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header("Retry-After", "1")
+				.body(referenceStatus(429, null, _e.getMessage()));
+	}
+
+	/**
+	 * Returns the Status Map for the Reference No.
+	 * @param _code
+	 * @param _referenceNo
+	 * @param _message
+	 * @return
+	 */
+	private HashMap<String,Object> referenceStatus(int _code, String _referenceNo, String _message) {
+		HashMap<String,Object> status = new HashMap<String,Object>();
+		status.put("Code", _code);
+		status.put("Status", true);
+		status.put("ReferenceNo", _referenceNo);
+		status.put("Message", _message);
+		return status;
+	}
+
 	/**
 	 * Cancel the Command
 	 */
@@ -166,6 +936,12 @@ public class AppControllerImpl extends AbstractController {
 	@DeleteMapping("/cancel/{referenceNo}")
 	public ResponseEntity<HashMap<String,Object>> cancel(@PathVariable("referenceNo") String _referenceNo) {
 		log.info("|"+name()+"|Request to Cancel the Command... ");
+		if(appService.cancelJob(_referenceNo)) {
+			return ResponseEntity.ok(referenceStatus(200, _referenceNo, "Command Cancelled!"));
+		}
+		if(shellSessionRegistry.close(_referenceNo)) {
+			return ResponseEntity.ok(referenceStatus(200, _referenceNo, "Shell Session Closed!"));
+		}
 		HashMap<String,Object> status = new HashMap<String,Object>();
 		status.put("Code", 404);
 		status.put("Status", true);
@@ -187,8 +963,19 @@ public class AppControllerImpl extends AbstractController {
 					content = @Content)
 	})
 	@PutMapping("/update/{referenceNo}")
-	public ResponseEntity<HashMap<String,Object>> updatePayment(@PathVariable("referenceNo") String _referenceNo) {
+	public ResponseEntity<HashMap<String,Object>> updatePayment(@PathVariable("referenceNo") String _referenceNo,
+			@RequestParam(value = "command", required = false) String _command) {
 		log.info("|"+name()+"|Request to Update Command... "+_referenceNo);
+		if(_command != null && appService.updateJob(_referenceNo, _command)) {
+			// Only a Queued Job can be updated
+			return ResponseEntity.ok(referenceStatus(200, _referenceNo, "Queued Command Updated!"));
+		}
+		ShellSession shell = shellSessionRegistry.get(_referenceNo);
+		if(shell != null) {
+			// Extends the Idle Expiry of the Shell Session
+			shell.touch();
+			return ResponseEntity.ok(referenceStatus(200, _referenceNo, "Shell Session Idle Expiry Extended!"));
+		}
 		HashMap<String,Object> status = new HashMap<String,Object>();
 		status.put("Code", 404);
 		status.put("Status", true);
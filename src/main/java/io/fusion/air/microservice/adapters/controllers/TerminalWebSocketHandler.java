@@ -0,0 +1,200 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fusion.air.microservice.domain.core.Target;
+import io.fusion.air.microservice.domain.core.TargetInventory;
+import io.fusion.air.microservice.domain.core.TerminalRegistry;
+import io.fusion.air.microservice.domain.core.TerminalSession;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Terminal WebSocket Handler - Bridges a Browser Terminal to an SSH Shell (PTY)
+ *
+ * ws://host:port/{service.api.path}/terminal?target=web-01&cols=120&rows=40
+ *
+ * Binary Frames (Both ways) - Raw Terminal Bytes
+ * Text Frames (Client)      - Control Messages Ex. {"type":"resize","cols":132,"rows":43}
+ *
+ * Output is sent (blocking) from the Terminal Reader Thread, so a slow Browser holds
+ * back the SSH Window. Input blocks on the SSH Window, so a slow Remote holds back the
+ * WebSocket Reader.
+ *
+ * @author arafkarsh
+ */
+@Component
+public class TerminalWebSocketHandler extends AbstractWebSocketHandler {
+
+	// Set Logger -> Lookup will automatically determine the class name.
+	private static final Logger log = getLogger(lookup().lookupClass());
+
+	private static final String TERMINAL = "terminal";
+
+	@Autowired
+	private TerminalRegistry terminalRegistry;
+
+	@Autowired
+	private TargetInventory targetInventory;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Open the Terminal on the Target
+	 * @param session
+	 * @throws Exception
+	 */
+	@Override
+	public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+		Map<String, String> params = queryParams(session.getUri());
+		try {
+			Target target = targetInventory.resolve(params.get("target"));
+			int columns = parseInt(params.get("cols"), 80);
+			int rows = parseInt(params.get("rows"), 24);
+			TerminalSession terminal = terminalRegistry.open(target, columns, rows, new TerminalSession.TerminalSink() {
+				@Override
+				public void send(byte[] _buffer, int _length) throws IOException {
+					session.sendMessage(new BinaryMessage(_buffer, 0, _length, true));
+				}
+
+				@Override
+				public void closed(String _reason) {
+					closeQuietly(session, CloseStatus.NORMAL.withReason(_reason));
+				}
+			});
+			session.getAttributes().put(TERMINAL, terminal);
+			log.info("WebSocket "+session.getId()+" connected to Terminal "+terminal.getReferenceNo()+" on "+target);
+		} catch (IOException | IllegalArgumentException e) {
+			log.error("WebSocket "+session.getId()+" Unable to open the Terminal: "+e.getMessage());
+			closeQuietly(session, CloseStatus.SERVER_ERROR.withReason("Unable to open the Terminal! "+e.getMessage()));
+		}
+	}
+
+	/**
+	 * Terminal Input (Raw Bytes)
+	 * @param session
+	 * @param message
+	 * @throws Exception
+	 */
+	@Override
+	protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+		TerminalSession terminal = terminal(session);
+		if(terminal == null) {
+			return;
+		}
+		ByteBuffer payload = message.getPayload();
+		if(payload.hasArray()) {
+			terminal.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+		} else {
+			byte[] bytes = new byte[payload.remaining()];
+			payload.get(bytes);
+			terminal.write(bytes, 0, bytes.length);
+		}
+	}
+
+	/**
+	 * Control Messages
+	 * @param session
+	 * @param message
+	 * @throws Exception
+	 */
+	@Override
+	protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+		TerminalSession terminal = terminal(session);
+		if(terminal == null) {
+			return;
+		}
+		JsonNode control = objectMapper.readTree(message.getPayload());
+		String type = control.path("type").asText();
+		if("resize".equals(type)) {
+			terminal.resize(control.path("cols").asInt(80), control.path("rows").asInt(24));
+		} else {
+			log.warn("WebSocket "+session.getId()+" Unknown Control Message: "+type);
+		}
+	}
+
+	@Override
+	public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+		log.warn("WebSocket "+session.getId()+" Transport Error: "+exception.getMessage());
+		closeQuietly(session, CloseStatus.SERVER_ERROR);
+	}
+
+	@Override
+	public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+		TerminalSession terminal = terminal(session);
+		if(terminal != null) {
+			terminalRegistry.close(terminal.getReferenceNo());
+		}
+	}
+
+	private static TerminalSession terminal(WebSocketSession session) {
+		return (TerminalSession) session.getAttributes().get(TERMINAL);
+	}
+
+	private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+		try {
+			if(session.isOpen()) {
+				session.close(status);
+			}
+		} catch (IOException e) {
+			log.debug("WebSocket "+session.getId()+" Close failed: "+e.getMessage());
+		}
+	}
+
+	private static Map<String, String> queryParams(URI uri) throws UnsupportedEncodingException {
+		HashMap<String, String> params = new HashMap<String, String>();
+		String query = (uri == null) ? null : uri.getRawQuery();
+		if(query == null) {
+			return params;
+		}
+		for(String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			if(eq > 0) {
+				params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+						URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+			}
+		}
+		return params;
+	}
+
+	private static int parseInt(String value, int defaultValue) {
+		try {
+			return (value == null) ? defaultValue : Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+}
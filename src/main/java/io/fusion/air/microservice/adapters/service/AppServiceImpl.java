@@ -1,9 +1,440 @@
 package io.fusion.air.microservice.adapters.service;
 
+import io.fusion.air.microservice.domain.core.CapturePolicy;
+import io.fusion.air.microservice.domain.core.CommandCoalescer;
+import io.fusion.air.microservice.domain.core.CommandJob;
+import io.fusion.air.microservice.domain.core.CommandResults;
+import io.fusion.air.microservice.domain.core.FleetExecutor;
+import io.fusion.air.microservice.domain.core.HostScheduler;
+import io.fusion.air.microservice.domain.core.JobRegistry;
+import io.fusion.air.microservice.domain.core.OutputCapture;
+import io.fusion.air.microservice.domain.core.OutputSpool;
+import io.fusion.air.microservice.domain.core.ResultCache;
+import io.fusion.air.microservice.domain.core.SSHClient;
+import io.fusion.air.microservice.domain.core.SSHSessionPool;
+import io.fusion.air.microservice.domain.core.Target;
+import io.fusion.air.microservice.domain.core.TargetInventory;
+import io.fusion.air.microservice.domain.core.WorkflowRun;
+import io.fusion.air.microservice.domain.models.CommandBatch;
+import io.fusion.air.microservice.domain.models.Workflow;
+import io.fusion.air.microservice.domain.models.WorkflowNode;
+import io.fusion.air.microservice.domain.services.AppService;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
 /**
  * App Business Service
  *
  * @author arafkarsh
  */
-public class AppServiceImpl {
+@Service
+public class AppServiceImpl implements AppService {
+
+	// Set Logger -> Lookup will automatically determine the class name.
+	private static final Logger log = getLogger(lookup().lookupClass());
+
+	@Autowired
+	private ServiceConfiguration serviceConfig;
+
+	@Autowired
+	private SSHSessionPool sshSessionPool;
+
+	@Autowired
+	private JobRegistry jobRegistry;
+
+	@Autowired
+	private FleetExecutor fleetExecutor;
+
+	@Autowired
+	private TargetInventory targetInventory;
+
+	@Autowired
+	private CommandCoalescer commandCoalescer;
+
+	@Autowired
+	private ResultCache resultCache;
+
+	@Autowired
+	private CapturePolicy capturePolicy;
+
+	@Autowired
+	private HostScheduler hostScheduler;
+
+	/**
+	 * Execute the Command on the Target
+	 * Cacheable Commands are served from the Result Cache (till the TTL) and identical
+	 * concurrent Requests for the Commands safe to share run once.
+	 *
+	 * @param _command
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	@Override
+	public CommandResults executeCommand(String _command, String _target, String _tenant) {
+		Target target = targetInventory.resolve(_target);
+		String key = target.toString();
+		return resultCache.execute(key, _command, () -> commandCoalescer.execute(key, _command, () ->
+				executeCommands(createSSHClient(target, target.getTimeoutSeconds(), _tenant),
+						new String[] { _command }).get(0)));
+	}
+
+	/**
+	 * Execute the Command on the Target and stream the Output as it arrives
+	 * @param _command
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @param _out
+	 * @return Command Results (without the Output) with the Std Error and Exit Code
+	 * @throws IOException
+	 */
+	@Override
+	public CommandResults streamCommand(String _command, String _target, String _tenant, OutputStream _out)
+			throws IOException {
+		Target target = targetInventory.resolve(_target);
+		SSHClient cl = createSSHClient(target, target.getTimeoutSeconds(), _tenant);
+		try {
+			cl.clientStart();
+			return cl.streamExecCommand(_command, _out);
+		} finally {
+			// Returns the Session to the Pool
+			cl.clientStop();
+		}
+	}
+
+	/**
+	 * Invalidate the Cached Command Results
+	 * @param _target Inventory Name (null = All Targets)
+	 * @param _command (null = All Commands)
+	 * @return No. of Results removed
+	 */
+	@Override
+	public int invalidateResults(String _target, String _command) {
+		String target = (_target == null) ? null : targetInventory.resolve(_target).toString();
+		return resultCache.invalidate(target, _command);
+	}
+
+	/**
+	 * Execute the Commands (in Sequence) on the Target
+	 * A failed Command is returned with the Error and no Exit Code, the Commands after it
+	 * as Not run.
+	 *
+	 * @param _commands
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	@Override
+	public List<CommandResults> executeCommands(String[] _commands, String _target, String _tenant) {
+		Target target = targetInventory.resolve(_target);
+		return executeCommands(createSSHClient(target, target.getTimeoutSeconds(), _tenant), _commands);
+	}
+
+	/**
+	 * Execute the Commands (in Sequence) using the SSH Client
+	 * If the Session fails, the failed Command has the Error and the Commands after it
+	 * are returned as Not run (both without an Exit Code).
+	 *
+	 * @param cl
+	 * @param _commands
+	 * @return
+	 */
+	private List<CommandResults> executeCommands(SSHClient cl, String[] _commands) {
+		ArrayList<CommandResults> results = cl.getResultArray();
+		int x = 0;
+		try {
+			cl.clientStart();
+			for(; x < _commands.length; x++) {
+				cl.executeCommand(_commands[x]);
+			}
+		} catch (IOException e) {
+			if(x < _commands.length) {
+				log.error("Unable to Execute SSH Command "+_commands[x]+" : "+e.getMessage());
+				results.add(new CommandResults(cl.getHost(), _commands[x], "", e.getMessage(), null, new Date()));
+			}
+			// The Session failed - Report the rest as not run (One Result per Command)
+			for(int next = x + 1; next < _commands.length; next++) {
+				results.add(new CommandResults(cl.getHost(), _commands[next], "",
+						"Not run: "+_commands[x]+" failed ("+e.getMessage()+")", null, new Date()));
+			}
+		} finally {
+			// Returns the Session to the Pool
+			cl.clientStop();
+		}
+		return results;
+	}
+
+	/**
+	 * Execute the independent Commands on the Target all at once (Many Channels on one
+	 * Session). Results are in the Submission Order.
+	 * If the Session fails, the Commands are returned with the Error and no Exit Code.
+	 *
+	 * @param _commands
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	@Override
+	public List<CommandResults> executePipelined(String[] _commands, String _target, String _tenant) {
+		Target target = targetInventory.resolve(_target);
+		return executePipelined(createSSHClient(target, target.getTimeoutSeconds(), _tenant),
+				Arrays.asList(_commands), false);
+	}
+
+	/**
+	 * Execute the Commands on the Target as one Script (One Channel for all the
+	 * Commands). Results are in the Submission Order.
+	 * If the Session fails, the Commands are returned with the Error and no Exit Code.
+	 *
+	 * @param _commands
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	@Override
+	public List<CommandResults> executeBundled(String[] _commands, String _target, String _tenant) {
+		Target target = targetInventory.resolve(_target);
+		return executePipelined(createSSHClient(target, target.getTimeoutSeconds(), _tenant),
+				Arrays.asList(_commands), true);
+	}
+
+	/**
+	 * Execute the Commands (Pipelined or Bundled) using the SSH Client
+	 * @param cl
+	 * @param _commands
+	 * @param _bundled One Script instead of a Channel per Command
+	 * @return
+	 */
+	private List<CommandResults> executePipelined(SSHClient cl, List<String> _commands, boolean _bundled) {
+		try {
+			cl.clientStart();
+			return _bundled
+					? cl.executeBundled(_commands)
+					: cl.executePipelined(_commands, serviceConfig.getSshPipelineChannels());
+		} catch (IOException e) {
+			log.error("Unable to Execute SSH Commands ("+(_bundled ? "Bundled" : "Pipelined")+") on "
+					+cl.getHost()+" : "+e.getMessage());
+			List<CommandResults> results = new ArrayList<CommandResults>(_commands.size());
+			for(String command : _commands) {
+				results.add(new CommandResults(cl.getHost(), command, "", e.getMessage(), null, new Date()));
+			}
+			return results;
+		} finally {
+			// Returns the Session to the Pool
+			cl.clientStop();
+		}
+	}
+
+	/**
+	 * Returns the Targets for the Hosts (Inventory Names) and the
+	 * Inventory Selector (tag:x, group:x ...). Duplicates are removed.
+	 *
+	 * @param _hosts Comma separated (Optional)
+	 * @param _selector (Optional)
+	 * @return
+	 */
+	@Override
+	public List<Target> selectTargets(String _hosts, String _selector) {
+		LinkedHashMap<String, Target> targets = new LinkedHashMap<String, Target>();
+		if(_hosts != null) {
+			for(String host : _hosts.split(",")) {
+				if(!host.trim().isEmpty()) {
+					Target target = targetInventory.resolve(host);
+					targets.put(target.getName(), target);
+				}
+			}
+		}
+		if(_selector != null && !_selector.trim().isEmpty()) {
+			for(Target target : targetInventory.select(_selector)) {
+				targets.put(target.getName(), target);
+			}
+		}
+		return new ArrayList<Target>(targets.values());
+	}
+
+	/**
+	 * Execute the Command on all the Targets in parallel. Results are handed to the
+	 * Sink as each Target finishes.
+	 *
+	 * @param _command
+	 * @param _targets
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @param _concurrency Concurrency Window (0 = Default)
+	 * @param _timeoutSeconds Per Host Timeout (0 = Default)
+	 * @param _sink
+	 * @throws InterruptedException
+	 */
+	@Override
+	public void executeOnTargets(String _command, List<Target> _targets, String _tenant, int _concurrency,
+							   long _timeoutSeconds, Consumer<CommandResults> _sink) throws InterruptedException {
+		int concurrency = (_concurrency > 0) ? _concurrency : serviceConfig.getSshFleetConcurrency();
+		long timeoutSeconds = (_timeoutSeconds > 0) ? _timeoutSeconds : serviceConfig.getSshFleetHostTimeoutSeconds();
+		fleetExecutor.execute(_command, _targets, Target::getHost, target -> {
+			SSHClient cl = createSSHClient(target, Math.min(timeoutSeconds, target.getTimeoutSeconds()), _tenant);
+			return executeCommands(cl, new String[] { _command }).get(0);
+		}, concurrency, TimeUnit.SECONDS.toMillis(timeoutSeconds), _sink);
+	}
+
+	/**
+	 * Execute the Batch - Commands in order on every Target (all at once if the Batch
+	 * is Pipelined, as one Script if it's Bundled), Targets in parallel. Results are
+	 * handed to the Sink as each Command (Pipelined / Bundled: each Target) finishes.
+	 *
+	 * @param _batch
+	 * @param _targets Targets of the Batch (See selectTargets)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @param _sink
+	 * @throws InterruptedException
+	 */
+	@Override
+	public void executeBatch(CommandBatch _batch, List<Target> _targets, String _tenant,
+							 Consumer<CommandResults> _sink) throws InterruptedException {
+		int concurrency = (_batch.getConcurrency() > 0) ? _batch.getConcurrency() : serviceConfig.getSshFleetConcurrency();
+		long timeoutSeconds = (_batch.getTimeoutSeconds() > 0)
+				? _batch.getTimeoutSeconds() : serviceConfig.getSshFleetHostTimeoutSeconds();
+		if(_batch.isPipelined() || _batch.isBundled()) {
+			// Each Command has its own Timeout, this covers the Waves (Bundled: one per Command)
+			int channels = _batch.isBundled() ? 1 : Math.max(1, serviceConfig.getSshPipelineChannels());
+			long waves = (_batch.getCommands().size() + channels - 1) / channels;
+			fleetExecutor.executePipelined(_batch.getCommands(), _targets, Target::getHost, (target, commands) ->
+					executePipelined(createSSHClient(target, Math.min(timeoutSeconds, target.getTimeoutSeconds()),
+							_tenant), commands, _batch.isBundled()), concurrency,
+					TimeUnit.SECONDS.toMillis(timeoutSeconds * (waves + 1)), _sink);
+			return;
+		}
+		fleetExecutor.execute(_batch.getCommands(), _targets, Target::getHost, (target, command) -> {
+			SSHClient cl = createSSHClient(target, Math.min(timeoutSeconds, target.getTimeoutSeconds()), _tenant);
+			return executeCommands(cl, new String[] { command }).get(0);
+		}, concurrency, TimeUnit.SECONDS.toMillis(timeoutSeconds), _batch.isStopOnError(), _sink);
+	}
+
+	/**
+	 * Submit the Command as an Asynchronous Job
+	 * @param _command
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	@Override
+	public CommandJob submitCommand(String _command, String _target, String _tenant) {
+		Target target = targetInventory.resolve(_target);
+		return jobRegistry.submit(_command, target.toString(), job -> {
+			SSHClient cl = createSSHClient(target, target.getTimeoutSeconds(), _tenant);
+			OutputSpool spool = job.getOutput();
+			if(spool == null) {
+				try {
+					cl.clientStart();
+					cl.executeCommand(job.getCommand());
+					return cl.getResultArray().get(0);
+				} finally {
+					cl.clientStop();
+				}
+			}
+			// Full Output goes to the Spool, the Results keep the Head + Tail
+			// The Target Timeout stays the Limit for the whole Command (not only the Silence)
+			OutputCapture capture = capturePolicy.newCapture();
+			try {
+				cl.clientStart();
+				return cl.streamExecCommand(job.getCommand(), spool, capture,
+						TimeUnit.SECONDS.toMillis(target.getTimeoutSeconds()));
+			} finally {
+				capture.release();
+				cl.clientStop();
+			}
+		});
+	}
+
+	/**
+	 * Submit the Workflow (DAG of Commands) as an Asynchronous Job. The Job Status has
+	 * the Progress of every Node. The Job fails if a Node failed.
+	 *
+	 * @param _workflow
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 * @throws IllegalArgumentException if the Graph or a Target is invalid, or it has too many Nodes
+	 */
+	@Override
+	public CommandJob submitWorkflow(Workflow _workflow, String _tenant) {
+		List<WorkflowRun.Node<Target>> nodes = new ArrayList<WorkflowRun.Node<Target>>();
+		LinkedHashSet<String> targets = new LinkedHashSet<String>();
+		if(_workflow.getNodes() != null && _workflow.getNodes().size() > serviceConfig.getSshWorkflowMaxNodes()) {
+			throw new IllegalArgumentException("Workflow has "+_workflow.getNodes().size()+" Nodes (Max "
+					+serviceConfig.getSshWorkflowMaxNodes()+")");
+		}
+		if(_workflow.getNodes() != null) {
+			for(WorkflowNode node : _workflow.getNodes()) {
+				String name = (node.getTarget() == null || node.getTarget().trim().isEmpty())
+						? _workflow.getTarget() : node.getTarget();
+				Target target = targetInventory.resolve(name);
+				targets.add(target.getName());
+				nodes.add(new WorkflowRun.Node<Target>(node.getId(), node.getCommand(), target, node.getDependsOn()));
+			}
+		}
+		String name = (_workflow.getName() == null) ? "workflow" : _workflow.getName();
+		WorkflowRun<Target> run = new WorkflowRun<Target>(name, nodes);
+		int concurrency = (_workflow.getConcurrency() > 0)
+				? _workflow.getConcurrency() : serviceConfig.getSshFleetConcurrency();
+		int hostConcurrency = (_workflow.getHostConcurrency() > 0)
+				? _workflow.getHostConcurrency() : serviceConfig.getSshWorkflowHostConcurrency();
+		long timeoutSeconds = (_workflow.getTimeoutSeconds() > 0)
+				? _workflow.getTimeoutSeconds() : serviceConfig.getSshFleetHostTimeoutSeconds();
+		return jobRegistry.submitWorkflow(run, String.join(",", targets), job -> {
+			fleetExecutor.executeWorkflow(run, Target::getHost, (target, command) -> {
+				SSHClient cl = createSSHClient(target, Math.min(timeoutSeconds, target.getTimeoutSeconds()), _tenant);
+				return executeCommands(cl, new String[] { command }).get(0);
+			}, concurrency, hostConcurrency, TimeUnit.SECONDS.toMillis(timeoutSeconds), _workflow.isStopOnError());
+			if(run.isFailed()) {
+				throw new IllegalStateException("Workflow "+name+" failed: "+run.getCounts());
+			}
+			return null;
+		});
+	}
+
+	@Override
+	public CommandJob getJob(String _referenceNo) {
+		return jobRegistry.get(_referenceNo);
+	}
+
+	@Override
+	public boolean cancelJob(String _referenceNo) {
+		return jobRegistry.cancel(_referenceNo);
+	}
+
+	@Override
+	public boolean updateJob(String _referenceNo, String _command) {
+		return jobRegistry.update(_referenceNo, _command);
+	}
+
+	/**
+	 * Create the SSH Client for the Target (with its own Credentials and Exec Mode)
+	 * @param _target
+	 * @param _timeoutSeconds
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	private SSHClient createSSHClient(Target _target, long _timeoutSeconds, String _tenant) {
+		SSHClient cl = new SSHClient(sshSessionPool, _target.getUser(), _target.getPassword(),
+				_target.getHost(), _target.getPort(), _timeoutSeconds);
+		cl.setExecMode(_target.getExecMode());
+		cl.setCapturePolicy(capturePolicy);
+		cl.setScheduler(hostScheduler);
+		cl.setTenant(_tenant);
+		return cl;
+	}
 }
@@ -0,0 +1,81 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancel Token - Cancels the Work of a Job / Fleet Task at once. The Worker binds the
+ * Token to its Thread, and the SSH Clients created on that Thread register their
+ * cancel() on it. Needed because SSHD's Waits don't wake up on the Thread Interrupt,
+ * so Future.cancel(true) alone leaves the Remote Command running till the Timeout.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class CancelToken {
+
+    private static final ThreadLocal<CancelToken> CURRENT = new ThreadLocal<CancelToken>();
+
+    private final List<Runnable> listeners = new ArrayList<Runnable>();
+    private volatile boolean cancelled;
+
+    /**
+     * Returns the Token bound to the Current Thread (null = None)
+     * @return
+     */
+    public static CancelToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Bind the Token to the Current Thread
+     * @param _token (null = Unbind)
+     * @return the Token bound before (to restore it)
+     */
+    public static CancelToken bind(CancelToken _token) {
+        CancelToken previous = CURRENT.get();
+        if(_token == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(_token);
+        }
+        return previous;
+    }
+
+    /**
+     * Run the Listener on Cancel (at once if already Cancelled)
+     * @param _listener
+     */
+    public void onCancel(Runnable _listener) {
+        synchronized (listeners) {
+            if(!cancelled) {
+                listeners.add(_listener);
+                return;
+            }
+        }
+        _listener.run();
+    }
+
+    /**
+     * Cancel (First Call only) - The Listeners run on the caller's Thread
+     */
+    public void cancel() {
+        List<Runnable> run;
+        synchronized (listeners) {
+            if(cancelled) {
+                return;
+            }
+            cancelled = true;
+            run = new ArrayList<Runnable>(listeners);
+            listeners.clear();
+        }
+        for(Runnable listener : run) {
+            listener.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,56 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Capped Output Stream - Keeps the first N Bytes and counts (drops) the rest.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+final class CappedOutputStream extends ByteArrayOutputStream {
+
+    private final int limit;
+    private long dropped;
+
+    /**
+     * Create the Capped Output Stream
+     * @param _limit Max Bytes kept
+     */
+    CappedOutputStream(int _limit) {
+        super(Math.min(_limit, 1024));
+        limit = _limit;
+    }
+
+    @Override
+    public synchronized void write(int _byte) {
+        if(count < limit) {
+            super.write(_byte);
+        } else {
+            dropped++;
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] _bytes, int _offset, int _length) {
+        int keep = Math.max(0, Math.min(_length, limit - count));
+        if(keep > 0) {
+            super.write(_bytes, _offset, keep);
+        }
+        dropped += _length - keep;
+    }
+
+    /**
+     * Returns the No. of Bytes dropped
+     * @return
+     */
+    synchronized long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return (dropped == 0) ? super.toString() : super.toString() + "... ["+dropped+" Bytes truncated]";
+    }
+}
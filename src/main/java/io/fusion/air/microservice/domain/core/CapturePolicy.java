@@ -0,0 +1,118 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Capture Policy - How much of the Command Output is kept in Memory.
+ * The first N Bytes (Head) and the last M Bytes (Tail) are kept, the middle is only
+ * counted. Head and Tail Buffers start small and grow (doubling) with the Output up to
+ * N / M, so a Command never costs more than (N + M) Bytes of Output, however much it
+ * prints, and a short Output costs a few KB. Only the full size Buffers are recycled
+ * through a Pool.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class CapturePolicy {
+
+    // 256 KB Head + 256 KB Tail, 32 Idle Buffers of each kind
+    public static final CapturePolicy DEFAULT = new CapturePolicy(256 * 1024, 256 * 1024, 32);
+    // First Head Buffer (when the Pool has no full size Buffer)
+    private static final int INITIAL_BYTES = 4 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int headBytes;
+    private final int tailBytes;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<byte[]> heads;
+    private final ConcurrentLinkedQueue<byte[]> tails;
+    private final AtomicInteger idleHeads;
+    private final AtomicInteger idleTails;
+
+    /**
+     * Create the Capture Policy
+     *
+     * @param _headBytes Bytes kept from the Start of the Output
+     * @param _tailBytes Bytes kept from the End of the Output
+     * @param _maxIdle Max Idle Buffers (of each kind) kept in the Pool
+     */
+    public CapturePolicy(int _headBytes, int _tailBytes, int _maxIdle) {
+        headBytes   = Math.max(0, _headBytes);
+        tailBytes   = Math.max(0, _tailBytes);
+        maxIdle     = _maxIdle;
+        heads       = new ConcurrentLinkedQueue<byte[]>();
+        tails       = new ConcurrentLinkedQueue<byte[]>();
+        idleHeads   = new AtomicInteger();
+        idleTails   = new AtomicInteger();
+    }
+
+    /**
+     * Returns a new Output Capture (Release it to return the Buffers)
+     * The Tail Buffer is allocated only when the Output goes beyond the Head.
+     * @return
+     */
+    public OutputCapture newCapture() {
+        byte[] head = poll(heads, idleHeads);
+        return new OutputCapture(this, (head != null) ? head : new byte[Math.min(headBytes, INITIAL_BYTES)], EMPTY);
+    }
+
+    public int getHeadBytes() {
+        return headBytes;
+    }
+
+    public int getTailBytes() {
+        return tailBytes;
+    }
+
+    /**
+     * Returns the Buffers to the Pool
+     * @param _head
+     * @param _tail
+     */
+    void release(byte[] _head, byte[] _tail) {
+        recycle(heads, idleHeads, _head, headBytes);
+        recycle(tails, idleTails, _tail, tailBytes);
+    }
+
+    /**
+     * Grow the Head / Tail Buffer (Double, at least the Bytes needed, at most the Limit)
+     * The Bytes in use are copied to the new Buffer.
+     *
+     * @param _buffer
+     * @param _used Bytes in use (from 0)
+     * @param _needed Bytes needed
+     * @param _head True = Head, False = Tail
+     * @return
+     */
+    byte[] grow(byte[] _buffer, int _used, int _needed, boolean _head) {
+        int limit = _head ? headBytes : tailBytes;
+        int size = Math.min(limit, Math.max(_needed, Math.max(_buffer.length * 2, INITIAL_BYTES)));
+        byte[] buffer = (size == limit) ? poll(_head ? heads : tails, _head ? idleHeads : idleTails) : null;
+        if(buffer == null) {
+            buffer = new byte[size];
+        }
+        System.arraycopy(_buffer, 0, buffer, 0, _used);
+        return buffer;
+    }
+
+    private static byte[] poll(ConcurrentLinkedQueue<byte[]> _pool, AtomicInteger _idle) {
+        byte[] buffer = _pool.poll();
+        if(buffer != null) {
+            _idle.decrementAndGet();
+        }
+        return buffer;
+    }
+
+    private void recycle(ConcurrentLinkedQueue<byte[]> _pool, AtomicInteger _idle, byte[] _buffer, int _size) {
+        // Only the full size Buffers, the smaller ones are left to the GC
+        if(_buffer.length == _size && _size > 0) {
+            if(_idle.incrementAndGet() <= maxIdle) {
+                _pool.offer(_buffer);
+            } else {
+                _idle.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.future.OpenFuture;
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Channel Pipeline - Runs a Batch of independent Commands on one authenticated
+ * Session with many Exec Channels open at once (SSH multiplexes the Channels on the
+ * one Connection). One Handshake for the Batch and it takes about as long as the
+ * slowest Command. Results are returned in the Submission Order.
+ *
+ * The Window adapts to the Server's MaxSessions (OpenSSH Default 10): if the Server
+ * refuses a Channel while others are open, the Window shrinks to the open Channels
+ * and the Command is retried when one of them closes.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class ChannelPipeline {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final int MAX_ERROR = 64 * 1024;
+    // Open Attempts per Command (Refused Channels are retried)
+    private static final int MAX_ATTEMPTS = 5;
+    // Back off (x Attempts) if no Channel is open - The Server frees the Slot of the
+    // last closed Channel only after it reads our Close
+    private static final long RETRY_DELAY_MILLIS = 50;
+    // Wait for the Close of the Expired Channels
+    private static final long CLOSE_WAIT_MILLIS = 1000;
+
+    private final String host;
+    private final ClientSession session;
+    private final long timeoutSeconds;
+    private final CapturePolicy capturePolicy;
+    private final int maxChannels;
+
+    /**
+     * Create the Channel Pipeline
+     *
+     * @param _host
+     * @param _session Authenticated Session
+     * @param _timeoutSeconds Per Command Timeout
+     * @param _policy Output Capture (Head + Tail) per Command
+     * @param _maxChannels Channels open at once (Upper limit for the Window)
+     */
+    public ChannelPipeline(String _host, ClientSession _session, long _timeoutSeconds, CapturePolicy _policy,
+                           int _maxChannels) {
+        host            = _host;
+        session         = _session;
+        timeoutSeconds  = _timeoutSeconds;
+        capturePolicy   = _policy;
+        maxChannels     = Math.max(1, _maxChannels);
+    }
+
+    /**
+     * Execute the Commands. A Command that fails (Channel refused, Timeout) is returned
+     * with the Error and no Exit Code.
+     *
+     * @param _commands
+     * @return Results in the Submission Order
+     * @throws IOException if the Session is closed
+     */
+    public List<CommandResults> execute(List<String> _commands) throws IOException {
+        CommandResults[] results = new CommandResults[_commands.size()];
+        BlockingQueue<Slot> completed = new LinkedBlockingQueue<Slot>();
+        ArrayDeque<Integer> pending = new ArrayDeque<Integer>();
+        for(int x = 0; x < _commands.size(); x++) {
+            pending.add(x);
+        }
+        int[] attempts = new int[_commands.size()];
+        List<Slot> open = new ArrayList<Slot>();
+        int window = maxChannels;
+        // The Server accepted a Channel (Refusals after that are the Server's Limit)
+        boolean accepted = false;
+        long retryAt = 0;
+        try {
+            while(!pending.isEmpty() || !open.isEmpty()) {
+                while(open.size() < window && !pending.isEmpty() && System.currentTimeMillis() >= retryAt) {
+                    int index = pending.poll();
+                    attempts[index]++;
+                    open.add(launch(index, _commands.get(index), completed));
+                }
+                long wakeUp = nextDeadline(open);
+                if(!pending.isEmpty() && retryAt > System.currentTimeMillis()) {
+                    wakeUp = Math.min(wakeUp, retryAt);
+                }
+                Slot slot = completed.poll(wakeUp - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                if(slot == null) {
+                    expire(open);
+                    continue;
+                }
+                open.remove(slot);
+                accepted = accepted || slot.isOpened() || opened(open) > 0;
+                if(!slot.isOpened() && !slot.timedOut) {
+                    if(!session.isOpen()) {
+                        throw new IOException("Session closed: "+host);
+                    }
+                    if(accepted && attempts[slot.index] < MAX_ATTEMPTS) {
+                        // Server Limit (MaxSessions) - Retry when a Channel closes
+                        window = Math.max(1, opened(open));
+                        if(opened(open) == 0) {
+                            retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS * attempts[slot.index];
+                        }
+                        pending.addFirst(slot.index);
+                        log.info("Channel refused by "+host+" | Window = "+window+" Channels");
+                        slot.release();
+                        continue;
+                    }
+                }
+                results[slot.index] = slot.toResults(host, timeoutSeconds);
+                slot.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Pipeline Interrupted");
+        } finally {
+            for(Slot slot : open) {
+                // Interrupted (Ex. the Batch is cancelled) - Stop the Remote Commands
+                RemoteCancel.abort(slot.channel);
+                slot.release();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Open the Exec Channel for the Command (Non Blocking)
+     * The Slot is queued once, when the Channel is closed (Completed, Refused or Expired).
+     */
+    private Slot launch(int _index, String _command, BlockingQueue<Slot> _completed) throws IOException {
+        Slot slot = new Slot(_index, _command, capturePolicy.newCapture(),
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        try {
+            slot.channel = createExecChannel(_command);
+            slot.channel.setOut(slot.out);
+            slot.channel.setErr(slot.err);
+            slot.channel.addCloseFutureListener(future -> slot.report(_completed));
+            slot.openFuture = slot.channel.open();
+            slot.openFuture.addListener(future -> {
+                if(!future.isOpened()) {
+                    slot.report(_completed);
+                }
+            });
+        } catch (IOException e) {
+            slot.release();
+            throw e;
+        }
+        return slot;
+    }
+
+    /**
+     * Create the Exec Channel (A Session being closed refuses the Registration)
+     */
+    private ChannelExec createExecChannel(String _command) throws IOException {
+        try {
+            return session.createExecChannel(_command);
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the No. of Channels the Server accepted (Still open)
+     */
+    private static int opened(List<Slot> _open) {
+        int opened = 0;
+        for(Slot slot : _open) {
+            if(slot.isOpened()) {
+                opened++;
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Returns the earliest Deadline of the open Channels (Expired ones are closing)
+     */
+    private static long nextDeadline(List<Slot> _open) {
+        long deadline = System.currentTimeMillis() + CLOSE_WAIT_MILLIS;
+        boolean running = false;
+        for(Slot slot : _open) {
+            if(!slot.timedOut) {
+                deadline = running ? Math.min(deadline, slot.deadline) : slot.deadline;
+                running = true;
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * Close the Channels past the Deadline (Reported as Timed out)
+     */
+    private void expire(List<Slot> _open) {
+        long now = System.currentTimeMillis();
+        for(Slot slot : _open) {
+            if(slot.deadline <= now && !slot.timedOut) {
+                log.warn("Command timed out after "+timeoutSeconds+" Seconds: "+slot.command);
+                slot.timedOut = true;
+                // Signal + Graceful Close - The Server frees its Session Slot on our Close
+                RemoteCancel.abort(slot.channel);
+            }
+        }
+    }
+
+    /**
+     * Command on its Exec Channel
+     */
+    private static final class Slot {
+        private final int index;
+        private final String command;
+        private final OutputCapture out;
+        private final CappedOutputStream err;
+        private final long deadline;
+        private final Date startTime;
+        private final AtomicBoolean reported;
+        private ChannelExec channel;
+        private OpenFuture openFuture;
+        // Set and read on the caller's Thread
+        private boolean timedOut;
+
+        private Slot(int _index, String _command, OutputCapture _out, long _deadline) {
+            index       = _index;
+            command     = _command;
+            out         = _out;
+            err         = new CappedOutputStream(MAX_ERROR);
+            deadline    = _deadline;
+            startTime   = new Date();
+            reported    = new AtomicBoolean();
+        }
+
+        /**
+         * Queue the Slot (First Event only)
+         */
+        private void report(BlockingQueue<Slot> _completed) {
+            if(reported.compareAndSet(false, true)) {
+                _completed.add(this);
+            }
+        }
+
+        private boolean isOpened() {
+            return openFuture != null && openFuture.isOpened();
+        }
+
+        /**
+         * Returns the Results (Output is complete, the Channel is closed)
+         */
+        private CommandResults toResults(String _host, long _timeoutSeconds) {
+            String error = err.toString();
+            if(timedOut) {
+                error = error + "Timed out after "+_timeoutSeconds+" Seconds";
+            } else if(!isOpened()) {
+                Throwable cause = (openFuture == null) ? null : openFuture.getException();
+                error = error + "Channel refused: " + ((cause == null) ? "Closed" : cause.getMessage());
+            }
+            return new CommandResults(_host, command, out.toByteArray(), error, channel.getExitStatus(), startTime,
+                    out.getTruncation());
+        }
+
+        private void release() {
+            out.release();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Command Coalescer (Single Flight) - Identical concurrent Commands on the same Target
+ * share one Execution. The first Request runs the Command, the others attach to it and
+ * get the same Command Results. Only Commands matching the Allow List (Safe to share,
+ * Ex. df -h, uptime) are coalesced, everything else runs as is.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class CommandCoalescer {
+
+    private final Pattern allowList;
+    private final ConcurrentHashMap<String, CompletableFuture<CommandResults>> inFlight;
+    private final AtomicLong executions;
+    private final AtomicLong coalesced;
+
+    /**
+     * Create the Command Coalescer
+     *
+     * @param _allowList Regex for the Commands that are safe to share (Empty = None)
+     */
+    public CommandCoalescer(String _allowList) {
+        allowList   = (_allowList == null || _allowList.trim().isEmpty()) ? null : Pattern.compile(_allowList.trim());
+        inFlight    = new ConcurrentHashMap<String, CompletableFuture<CommandResults>>();
+        executions  = new AtomicLong();
+        coalesced   = new AtomicLong();
+    }
+
+    /**
+     * Returns True if the Command is safe to share
+     * @param _command
+     * @return
+     */
+    public boolean isShareable(String _command) {
+        return allowList != null && _command != null && allowList.matcher(normalize(_command)).matches();
+    }
+
+    /**
+     * Execute the Command or attach to the identical one in flight on the Target
+     *
+     * @param _target
+     * @param _command
+     * @param _execution Runs the Command (on the caller's Thread)
+     * @return
+     */
+    public CommandResults execute(String _target, String _command, Supplier<CommandResults> _execution) {
+        if(!isShareable(_command)) {
+            return _execution.get();
+        }
+        String key = _target + "\u0000" + normalize(_command);
+        CompletableFuture<CommandResults> mine = new CompletableFuture<CommandResults>();
+        CompletableFuture<CommandResults> leader = inFlight.putIfAbsent(key, mine);
+        if(leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+        executions.incrementAndGet();
+        try {
+            CommandResults result = _execution.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Requests arriving from now on run the Command again
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Returns the Coalescer Stats
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("allowList", (allowList == null) ? "" : allowList.pattern());
+        stats.put("inFlight", inFlight.size());
+        stats.put("executions", executions.get());
+        stats.put("coalesced", coalesced.get());
+        return stats;
+    }
+
+    /**
+     * Trim only - the White Spaces within the Command (Ex. in Quotes, Heredocs) are
+     * significant, so "echo 'a  b'" and "echo 'a b'" are different Commands.
+     * @param _command
+     * @return
+     */
+    static String normalize(String _command) {
+        return _command.trim();
+    }
+
+    /**
+     * Wait for the Leader (bounded by the SSH Timeout of the Leader)
+     * @param _leader
+     * @return
+     */
+    private static CommandResults await(CompletableFuture<CommandResults> _leader) {
+        try {
+            return _leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Command Job - An Asynchronous Command (or Workflow) identified by a Reference No.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class CommandJob {
+
+    private final String referenceNo;
+    private final String target;
+    private final Date submittedTime;
+    private final AtomicReference<JobState> state;
+
+    private volatile String command;
+    private volatile Date startTime;
+    private volatile Date endTime;
+    private volatile CommandResults result;
+    private volatile String error;
+    private volatile Future<?> future;
+    // Stops the Remote Commands of the Job (SSH Clients created on the Job's Thread)
+    private final CancelToken cancelToken;
+    // Full Output (null = Not Spooled)
+    private volatile OutputSpool output;
+    // Progress of the Workflow (null = Single Command)
+    private volatile WorkflowRun<?> workflow;
+    // Completes on the next State Change (Replaced after every Change)
+    private volatile CompletableFuture<JobState> changed;
+
+    /**
+     * Create the Command Job
+     *
+     * @param _referenceNo
+     * @param _command
+     * @param _target
+     */
+    CommandJob(String _referenceNo, String _command, String _target) {
+        referenceNo     = _referenceNo;
+        command         = _command;
+        target          = _target;
+        submittedTime   = new Date();
+        state           = new AtomicReference<JobState>(JobState.QUEUED);
+        cancelToken     = new CancelToken();
+        changed         = new CompletableFuture<JobState>();
+    }
+
+    public String getReferenceNo() {
+        return referenceNo;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public JobState getState() {
+        return state.get();
+    }
+
+    public Date getSubmittedTime() {
+        return submittedTime;
+    }
+
+    public Date getStartTime() {
+        return startTime;
+    }
+
+    public Date getEndTime() {
+        return endTime;
+    }
+
+    public CommandResults getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the Full Output (null if the Job Output is not Spooled)
+     * @return
+     */
+    public OutputSpool getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the Workflow (null if the Job is a Single Command)
+     * @return
+     */
+    public WorkflowRun<?> getWorkflow() {
+        return workflow;
+    }
+
+    /**
+     * Returns the Job Status
+     * @return
+     */
+    public Map<String, Object> getStatus() {
+        LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+        WorkflowRun<?> run = workflow;
+        status.put("ReferenceNo", referenceNo);
+        status.put("Type", (run == null) ? "JOB" : "WORKFLOW");
+        status.put("State", getState());
+        status.put("Command", command);
+        status.put("Target", target);
+        status.put("Submitted", submittedTime);
+        status.put("Started", startTime);
+        status.put("Ended", endTime);
+        if(result != null) {
+            status.put("Result", result);
+        }
+        if(error != null) {
+            status.put("Error", error);
+        }
+        OutputSpool spool = output;
+        if(spool != null) {
+            status.put("Output", spool.getStatus());
+        }
+        if(run != null) {
+            status.put("Workflow", run.getStatus());
+        }
+        return status;
+    }
+
+    /**
+     * Returns a Future that completes when the Job moves out of the State
+     * (Already completed if the Job is not in that State now)
+     *
+     * @param _seen
+     * @return
+     */
+    public CompletableFuture<JobState> whenChangedFrom(JobState _seen) {
+        CompletableFuture<JobState> next = changed;
+        JobState current = getState();
+        return (current != _seen) ? CompletableFuture.completedFuture(current) : next;
+    }
+
+    /**
+     * Replace the Command (Only while the Job is Queued, not for a Workflow)
+     * @param _command
+     * @return
+     */
+    synchronized boolean updateCommand(String _command) {
+        if(getState() != JobState.QUEUED || workflow != null) {
+            return false;
+        }
+        command = _command;
+        return true;
+    }
+
+    /**
+     * QUEUED -> RUNNING
+     * @return
+     */
+    synchronized boolean start() {
+        if(!state.compareAndSet(JobState.QUEUED, JobState.RUNNING)) {
+            return false;
+        }
+        startTime = new Date();
+        fireChange();
+        return true;
+    }
+
+    /**
+     * RUNNING -> COMPLETED
+     * @param _result
+     * @return
+     */
+    boolean complete(CommandResults _result) {
+        result = _result;
+        return finish(JobState.COMPLETED);
+    }
+
+    /**
+     * QUEUED / RUNNING -> FAILED
+     * @param _error
+     * @return
+     */
+    boolean fail(String _error) {
+        error = _error;
+        return finish(JobState.FAILED);
+    }
+
+    /**
+     * QUEUED / RUNNING -> CANCELLED
+     * The Remote Command is stopped first (Channel closed, the Worker wakes up at once),
+     * then the Worker Thread is interrupted.
+     * @return
+     */
+    boolean cancel() {
+        if(!finish(JobState.CANCELLED)) {
+            return false;
+        }
+        cancelToken.cancel();
+        Future<?> handle = future;
+        if(handle != null) {
+            handle.cancel(true);
+        }
+        return true;
+    }
+
+    void setFuture(Future<?> _future) {
+        future = _future;
+    }
+
+    CancelToken getCancelToken() {
+        return cancelToken;
+    }
+
+    void setOutput(OutputSpool _output) {
+        output = _output;
+    }
+
+    /**
+     * Every Node State Change of the Workflow is a Change of the Job (Wakes up the
+     * Status Long Poll)
+     * @param _workflow
+     */
+    void setWorkflow(WorkflowRun<?> _workflow) {
+        workflow = _workflow;
+        _workflow.setListener(this::fireChange);
+    }
+
+    /**
+     * Release the Full Output (Job is evicted)
+     */
+    void release() {
+        OutputSpool spool = output;
+        if(spool != null) {
+            spool.close();
+        }
+    }
+
+    /**
+     * Move to the Terminal State (First one wins)
+     * @param _terminal
+     * @return
+     */
+    private boolean finish(JobState _terminal) {
+        JobState current;
+        do {
+            current = state.get();
+            if(current.isTerminal()) {
+                return false;
+            }
+        } while(!state.compareAndSet(current, _terminal));
+        endTime = new Date();
+        fireChange();
+        return true;
+    }
+
+    /**
+     * Notify the Waiters of the State Change
+     */
+    private void fireChange() {
+        CompletableFuture<JobState> previous;
+        synchronized (this) {
+            previous = changed;
+            changed = new CompletableFuture<JobState>();
+        }
+        previous.complete(getState());
+    }
+}
@@ -1,22 +1,53 @@
 package io.fusion.air.microservice.domain.core;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.time.LocalDateTime;
-import java.util.Date;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.WriterBasedJsonGenerator;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.fusion.air.microservice.utils.CommandResultsJsonSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
 
 /**
+ * Command Results - The Output is kept as the raw (UTF-8) Bytes with a Line Index
+ * (Start Offset of every Line) built once when the Results are created. Strings for
+ * the Output or a Line are only created on demand, and the JSON is written straight
+ * from the Bytes (Streaming Generator, also used by the ObjectMapper).
+ *
  * @author: Araf Karsh Hamid
  * @version:
  * @date:
  */
+@JsonSerialize(using = CommandResultsJsonSerializer.class)
 public final class CommandResults {
 
+    private static final byte[] NO_OUTPUT = new byte[0];
+    // Thread Safe, shared by all the Results (Ex. 2022-04-27T12:49+0530)
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmZ").withZone(ZoneId.systemDefault());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String host;
     private final String command;
-    private final String result;
+    private final byte[] output;
+    // lineStarts[x] = Offset of Line x, the Line ends 1 Byte (New Line) before lineStarts[x + 1]
+    private final int[] lineStarts;
+    // The Remote may send any Bytes, only valid UTF-8 is written to JSON as is
+    private final boolean validUTF8;
+    private final String error;
+    private final Integer exitCode;
     private final Date startTime;
     private final long elapsedTime;
+    private final boolean cached;
+    private final OutputTruncation truncation;
 
     /**
      * Create Command Results
@@ -26,11 +57,114 @@ public final class CommandResults {
      * @param _startTime
      */
     public CommandResults(String _cmd, String _result, Date _startTime) {
+        this(_cmd, _result, "", null, _startTime);
+    }
+
+    /**
+     * Create Command Results with the Exit Code and Std Error
+     *
+     * @param _cmd
+     * @param _result
+     * @param _error
+     * @param _exitCode (null if the Remote didn't send the Exit Status)
+     * @param _startTime
+     */
+    public CommandResults(String _cmd, String _result, String _error, Integer _exitCode, Date _startTime) {
+        this(null, _cmd, _result, _error, _exitCode, _startTime);
+    }
+
+    /**
+     * Create Command Results for the Host
+     *
+     * @param _host
+     * @param _cmd
+     * @param _result
+     * @param _error
+     * @param _exitCode (null if the Remote didn't send the Exit Status)
+     * @param _startTime
+     */
+    public CommandResults(String _host, String _cmd, String _result, String _error, Integer _exitCode, Date _startTime) {
+        this(_host, _cmd, _result, _error, _exitCode, _startTime, null);
+    }
+
+    /**
+     * Create Command Results for the Host with the Output Truncation
+     *
+     * @param _host
+     * @param _cmd
+     * @param _result Head + Tail of the Output
+     * @param _error
+     * @param _exitCode (null if the Remote didn't send the Exit Status)
+     * @param _startTime
+     * @param _truncation (null if the Output was kept in full)
+     */
+    public CommandResults(String _host, String _cmd, String _result, String _error, Integer _exitCode,
+                          Date _startTime, OutputTruncation _truncation) {
+        this(_host, _cmd, (_result == null) ? NO_OUTPUT : _result.getBytes(StandardCharsets.UTF_8),
+                _error, _exitCode, _startTime, _truncation);
+    }
+
+    /**
+     * Create Command Results for the Host from the raw Output (UTF-8 Bytes)
+     *
+     * @param _host
+     * @param _cmd
+     * @param _output Output Bytes (Not copied, the Caller must not modify them)
+     * @param _error
+     * @param _exitCode (null if the Remote didn't send the Exit Status)
+     * @param _startTime
+     * @param _truncation (null if the Output was kept in full)
+     */
+    public CommandResults(String _host, String _cmd, byte[] _output, String _error, Integer _exitCode,
+                          Date _startTime, OutputTruncation _truncation) {
+        host        = _host;
         command     = _cmd;
-        result      = _result;
+        output      = (_output == null) ? NO_OUTPUT : _output;
+        lineStarts  = indexLines(output);
+        validUTF8   = isValidUTF8(output, 0, output.length);
+        error       = _error;
+        exitCode    = _exitCode;
         startTime   = _startTime;
         long endTime= System.currentTimeMillis();
         elapsedTime = endTime - startTime.getTime();
+        cached      = false;
+        truncation  = _truncation;
+    }
+
+    /**
+     * Copy of the Command Results served from the Result Cache
+     * (Keeps the original Start Time and Elapsed Time)
+     *
+     * @param _source
+     */
+    private CommandResults(CommandResults _source) {
+        host        = _source.host;
+        command     = _source.command;
+        output      = _source.output;
+        lineStarts  = _source.lineStarts;
+        validUTF8   = _source.validUTF8;
+        error       = _source.error;
+        exitCode    = _source.exitCode;
+        startTime   = _source.startTime;
+        elapsedTime = _source.elapsedTime;
+        cached      = true;
+        truncation  = _source.truncation;
+    }
+
+    /**
+     * Returns the Cached Copy of the Command Results
+     * @return
+     */
+    public CommandResults asCached() {
+        return cached ? this : new CommandResults(this);
+    }
+
+    /**
+     * Returns the Host
+     * @return
+     */
+    public String getHost() {
+        return host;
     }
 
     /**
@@ -42,11 +176,56 @@ public final class CommandResults {
     }
 
     /**
-     * Returns the Result
+     * Returns the Result (Decoded from the Output Bytes on every call)
      * @return
      */
     public String getResult() {
-        return result;
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the Size of the Output in Bytes
+     * @return
+     */
+    public int getResultSize() {
+        return output.length;
+    }
+
+    /**
+     * Returns the No. of Lines in the Output
+     * @return
+     */
+    public int getLineCount() {
+        return lineStarts.length - 1;
+    }
+
+    /**
+     * Returns the Line (0 based, without the Line Terminator)
+     * @param _line
+     * @return
+     */
+    public String getLine(int _line) {
+        if(_line < 0 || _line >= getLineCount()) {
+            throw new IndexOutOfBoundsException("Line "+_line+" of "+getLineCount());
+        }
+        int start = lineStarts[_line];
+        return new String(output, start, lineEnd(_line) - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the Std Error
+     * @return
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the Exit Code (null if the Remote didn't send the Exit Status)
+     * @return
+     */
+    public Integer getExitCode() {
+        return exitCode;
     }
 
     /**
@@ -65,27 +244,220 @@ public final class CommandResults {
         return elapsedTime;
     }
 
+    /**
+     * Returns True if the Results were served from the Result Cache
+     * (Start Time is the time of the original Execution)
+     * @return
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Returns the Output Truncation (null if the Output was kept in full)
+     * @return
+     */
+    public OutputTruncation getTruncation() {
+        return truncation;
+    }
+
+    /**
+     * Returns True if the middle of the Output was dropped
+     * @return
+     */
+    public boolean isTruncated() {
+        return truncation != null;
+    }
+
+    /**
+     * Returns the Results as JSON with the Output as an Array of Lines (See examples/ex-2.json)
+     * <pre>
+     * {"date":"2022-04-27T12:49+0530","host":"web-01","command":"ls -la","result":["...","..."],
+     *  "error":"","exitCode":0,"timeTaken":11175,"cached":false}
+     * </pre>
+     * The REST Responses (ObjectMapper) have the Shape of writeJSON(JsonGenerator).
+     * @return
+     */
     public String toJSONString() {
-        StringBuilder sb = new StringBuilder();
-        String isoDt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mmZ").format(startTime);
-        sb.append("{");
-        sb.append("\"date\": \"").append(isoDt).append("\",");
-        sb.append("\"command\": \"").append(command).append("\",");
-        // sb.append("\"result\": \"").append(result.replaceAll("[\\r\\n]+", "[newline]")).append("\",");
-        // “\R” pattern instead of “\\r?\\n|\\r” in Java 8 or higher.
-        String[] lines = result.split("\\R");
-        sb.append("\"result\":[");
-        int x=1;
-        for(String line : lines) {
-            sb.append("\"").append(line).append("\"");
-            if(x < lines.length) {
-                sb.append(",");
+        ByteArrayOutputStream out = new ByteArrayOutputStream(output.length + 256);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("date", DATE_FORMAT.format(startTime.toInstant()));
+            generator.writeStringField("host", host);
+            generator.writeStringField("command", command);
+            generator.writeArrayFieldStart("result");
+            for(int x = 0; x < getLineCount(); x++) {
+                if(validUTF8) {
+                    // Straight from the Line Index, No String per Line
+                    generator.writeUTF8String(output, lineStarts[x], lineEnd(x) - lineStarts[x]);
+                } else {
+                    generator.writeString(getLine(x));
+                }
+            }
+            generator.writeEndArray();
+            generator.writeStringField("error", error);
+            writeExitCode(generator);
+            generator.writeNumberField("timeTaken", elapsedTime);
+            generator.writeBooleanField("cached", cached);
+            if(truncation != null) {
+                generator.writeFieldName("truncated");
+                writeTruncation(generator);
             }
-            x++;
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the Results as JSON (UTF-8) to the Output Stream (Not closed)
+     *
+     * @param _out
+     * @throws IOException
+     */
+    public void writeJSON(OutputStream _out) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(_out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        writeJSON(generator);
+        generator.close();
+    }
+
+    /**
+     * Write the Results with the Generator. Valid UTF-8 Output is escaped and written
+     * straight from the Output Bytes (No String for the Output or its Lines). Binary Formats
+     * (CBOR / Smile) carry the Output Bytes as is (Byte String, No Escaping).
+     *
+     * @param _generator
+     * @throws IOException
+     */
+    public void writeJSON(JsonGenerator _generator) throws IOException {
+        _generator.writeStartObject();
+        _generator.writeStringField("host", host);
+        _generator.writeStringField("command", command);
+        _generator.writeFieldName("result");
+        if(_generator.canWriteBinaryNatively()) {
+            _generator.writeBinary(output, 0, output.length);
+        } else if(_generator instanceof WriterBasedJsonGenerator || !validUTF8) {
+            // Character Target (Ex. writeValueAsString) can't take the Bytes as is, and
+            // the invalid UTF-8 Sequences are decoded as the Replacement Char (U+FFFD)
+            _generator.writeString(getResult());
+        } else {
+            _generator.writeUTF8String(output, 0, output.length);
+        }
+        _generator.writeStringField("error", error);
+        writeExitCode(_generator);
+        // Start Time in Epoch Millis (See examples/ex-1.json)
+        _generator.writeNumberField("startTime", startTime.getTime());
+        _generator.writeNumberField("elapsedTime", elapsedTime);
+        _generator.writeBooleanField("cached", cached);
+        _generator.writeNumberField("resultSize", output.length);
+        _generator.writeNumberField("lineCount", getLineCount());
+        _generator.writeBooleanField("truncated", truncation != null);
+        _generator.writeFieldName("truncation");
+        if(truncation == null) {
+            _generator.writeNull();
+        } else {
+            writeTruncation(_generator);
+        }
+        _generator.writeEndObject();
+    }
+
+    private void writeExitCode(JsonGenerator _generator) throws IOException {
+        if(exitCode == null) {
+            _generator.writeNullField("exitCode");
+        } else {
+            _generator.writeNumberField("exitCode", exitCode);
+        }
+    }
+
+    private void writeTruncation(JsonGenerator _generator) throws IOException {
+        _generator.writeStartObject();
+        _generator.writeNumberField("totalBytes", truncation.getTotalBytes());
+        _generator.writeNumberField("totalLines", truncation.getTotalLines());
+        _generator.writeNumberField("droppedBytes", truncation.getDroppedBytes());
+        _generator.writeNumberField("droppedLines", truncation.getDroppedLines());
+        _generator.writeEndObject();
+    }
+
+    /**
+     * End of the Line (Excludes the New Line and a Carriage Return before it)
+     */
+    private int lineEnd(int _line) {
+        int end = lineStarts[_line + 1] - 1;
+        if(end > lineStarts[_line] && output[end - 1] == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns True if the Bytes are well formed UTF-8 (No Overlong Forms, Surrogates
+     * or Code Points beyond U+10FFFF, No cut off Sequence at the End)
+     */
+    static boolean isValidUTF8(byte[] _bytes, int _from, int _to) {
+        int x = _from;
+        while(x < _to) {
+            int lead = _bytes[x] & 0xFF;
+            if(lead < 0x80) {
+                x++;
+                continue;
+            }
+            int length;
+            int min = 0x80;
+            int max = 0xBF;
+            if(lead >= 0xC2 && lead <= 0xDF) {
+                length = 2;
+            } else if(lead >= 0xE0 && lead <= 0xEF) {
+                length = 3;
+                min = (lead == 0xE0) ? 0xA0 : min;
+                max = (lead == 0xED) ? 0x9F : max;
+            } else if(lead >= 0xF0 && lead <= 0xF4) {
+                length = 4;
+                min = (lead == 0xF0) ? 0x90 : min;
+                max = (lead == 0xF4) ? 0x8F : max;
+            } else {
+                return false;
+            }
+            if(x + length > _to) {
+                return false;
+            }
+            int second = _bytes[x + 1] & 0xFF;
+            if(second < min || second > max) {
+                return false;
+            }
+            for(int y = x + 2; y < x + length; y++) {
+                if((_bytes[y] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            x += length;
+        }
+        return true;
+    }
+
+    /**
+     * Build the Line Index - Start Offset of every Line + the End Marker
+     * (Output Length + 1 if the last Line has no New Line)
+     */
+    private static int[] indexLines(byte[] _output) {
+        int newLines = 0;
+        for(byte b : _output) {
+            if(b == '\n') {
+                newLines++;
+            }
+        }
+        boolean partial = _output.length > 0 && _output[_output.length - 1] != '\n';
+        int[] starts = new int[newLines + (partial ? 1 : 0) + 1];
+        int line = 1;
+        for(int x = 0; x < _output.length; x++) {
+            if(_output[x] == '\n') {
+                starts[line++] = x + 1;
+            }
+        }
+        if(partial) {
+            starts[line] = _output.length + 1;
         }
-        sb.append("],");
-        sb.append("\"timeTaken\": ").append(elapsedTime);
-        sb.append("}");
-        return sb.toString();
+        return starts;
     }
 }
@@ -0,0 +1,25 @@
+package io.fusion.air.microservice.domain.core;
+
+/**
+ * SSH Command Execution Mode
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public enum ExecMode {
+
+    /**
+     * Exec Channel per Command. Completes on EXIT_STATUS / CLOSED from the Remote.
+     */
+    EXEC,
+    /**
+     * Shell Channel. Completes on CLOSED (or the Timeout).
+     */
+    SHELL,
+    /**
+     * Persistent Shell Channel. Completes on the End Marker in the Output.
+     * The Shell stays open (in the Session Pool) for the next Command.
+     */
+    SENTINEL;
+}
@@ -0,0 +1,478 @@
+package io.fusion.air.microservice.domain.core;
+
+import io.fusion.air.microservice.utils.HashedWheelTimer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Fleet Executor - Runs a Command across many Hosts in parallel within a
+ * Concurrency Window and a per Host Timeout. Results are handed to the Sink as each
+ * Host finishes (in completion order), so the caller never waits for the slowest Host.
+ * A Batch of Commands runs in order on each Host, with a Result per Command, or all at
+ * once on each Host (Pipelined). A Workflow (DAG of Commands) runs its Ready Nodes in
+ * parallel within a per Host Limit (shared by all the Workflow Runs).
+ *
+ * The Worker Threads are shared by all the Runs. A Task is launched only when a Worker
+ * is free (FIFO across the Runs), so the Windows of concurrent Runs never queue Tasks
+ * behind each other, and the Timeout starts when the Task starts.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class FleetExecutor {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    /**
+     * Runs the Command on one Target
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface FleetTask<T> {
+        CommandResults run(T _target) throws Exception;
+    }
+
+    /**
+     * Runs one Command of the Batch on one Target
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface BatchTask<T> {
+        CommandResults run(T _target, String _command) throws Exception;
+    }
+
+    /**
+     * Runs the Commands on one Target (Results in the Submission Order)
+     * @param <T>
+     */
+    @FunctionalInterface
+    public interface PipelineTask<T> {
+        List<CommandResults> run(T _target, List<String> _commands) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    // Free Workers - Taken before the Submit, given back when the Task's Thread is done
+    private final Semaphore workers;
+    private final HashedWheelTimer timer;
+    private final int maxConcurrency;
+    // Workflow Nodes in flight per Host across the Runs (Guarded by itself). A Slot is held
+    // till the Task's Thread is done, not till the Timeout, as the Command may still run.
+    private final HashMap<String, Integer> hostSlots;
+    // Wake up of the Workflow Runs waiting for a Host Slot
+    private final Set<Runnable> slotListeners;
+
+    /**
+     * Create the Fleet Executor
+     *
+     * @param _timer Per Host Timeouts
+     * @param _threads Shared Worker Threads (Upper limit for the Concurrency Window of a Run)
+     */
+    public FleetExecutor(HashedWheelTimer _timer, int _threads) {
+        timer           = _timer;
+        maxConcurrency  = _threads;
+        workers         = new Semaphore(_threads, true);
+        hostSlots       = new HashMap<String, Integer>();
+        slotListeners   = ConcurrentHashMap.newKeySet();
+        AtomicInteger threadNo = new AtomicInteger();
+        executor        = Executors.newFixedThreadPool(_threads, r -> {
+            Thread t = new Thread(r, "ssh-fleet-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Shutdown the Executor
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Execute the Command on all the Targets. Blocks till every Target has reported.
+     * The Sink is called on the caller's Thread. If the Sink fails (Ex. the HTTP Client
+     * went away) the Hosts still in flight are cancelled.
+     *
+     * @param _command
+     * @param _targets
+     * @param _hostOf Host Name of the Target (for the Failed / Timed out Results)
+     * @param _task
+     * @param _window Concurrency Window
+     * @param _timeoutMillis Per Host Timeout
+     * @param _sink
+     * @throws InterruptedException
+     */
+    public <T> void execute(String _command, List<T> _targets, Function<T, String> _hostOf, FleetTask<T> _task,
+                            int _window, long _timeoutMillis, Consumer<CommandResults> _sink)
+            throws InterruptedException {
+        execute(Collections.singletonList(_command), _targets, _hostOf, (target, command) -> _task.run(target),
+                _window, _timeoutMillis, false, _sink);
+    }
+
+    /**
+     * Execute the Commands on all the Targets. Commands run in order on a Target (the
+     * next one starts when the previous one finished) and the Targets run in parallel
+     * within the Window. Results are handed to the Sink as each Command finishes, so
+     * the Batch is never held in Memory.
+     *
+     * @param _commands
+     * @param _targets
+     * @param _hostOf Host Name of the Target (for the Failed / Timed out Results)
+     * @param _task
+     * @param _window Concurrency Window (Targets in flight)
+     * @param _timeoutMillis Per Command Timeout
+     * @param _stopOnError Skip the rest of the Commands on a Target after a failed one
+     *                     (Error or non zero Exit Code). Skipped Commands are reported.
+     * @param _sink
+     * @throws InterruptedException
+     */
+    public <T> void execute(List<String> _commands, List<T> _targets, Function<T, String> _hostOf,
+                            BatchTask<T> _task, int _window, long _timeoutMillis, boolean _stopOnError,
+                            Consumer<CommandResults> _sink) throws InterruptedException {
+        run(_commands, _targets, _hostOf, (target, commands) -> Collections.singletonList(
+                _task.run(target, commands.get(0))), 1, _window, _timeoutMillis, _stopOnError, _sink);
+    }
+
+    /**
+     * Execute the independent Commands on all the Targets. All the Commands of a Target
+     * are handed to the Task at once (Ex. many Channels on one Session) and the Targets
+     * run in parallel within the Window. Results of a Target are handed to the Sink in
+     * the Submission Order.
+     *
+     * @param _commands
+     * @param _targets
+     * @param _hostOf Host Name of the Target (for the Failed / Timed out Results)
+     * @param _task
+     * @param _window Concurrency Window (Targets in flight)
+     * @param _timeoutMillis Per Target Timeout (All the Commands)
+     * @param _sink
+     * @throws InterruptedException
+     */
+    public <T> void executePipelined(List<String> _commands, List<T> _targets, Function<T, String> _hostOf,
+                                     PipelineTask<T> _task, int _window, long _timeoutMillis,
+                                     Consumer<CommandResults> _sink) throws InterruptedException {
+        run(_commands, _targets, _hostOf, _task, _commands.size(), _window, _timeoutMillis, false, _sink);
+    }
+
+    /**
+     * Execute the Workflow (DAG). Ready Nodes run in parallel within the Window and the
+     * per Host Limit, a Node starts as soon as the Nodes it depends on completed.
+     * A failed Node (Error, Timeout or non zero Exit Code) skips its Dependents, or all
+     * the Waiting Nodes with Stop on Error. Blocks till no Node is Running or Ready.
+     * If the Thread is interrupted (Ex. the Job is cancelled) the Nodes in flight are
+     * cancelled.
+     *
+     * @param _run
+     * @param _hostOf Host Name of the Target (Key for the per Host Limit)
+     * @param _task
+     * @param _window Concurrency Window (Nodes in flight)
+     * @param _perHost Nodes in flight per Host (across the Workflow Runs)
+     * @param _timeoutMillis Per Node Timeout
+     * @param _stopOnError Skip all the Waiting Nodes after a failed one
+     * @throws InterruptedException
+     */
+    public <T> void executeWorkflow(WorkflowRun<T> _run, Function<T, String> _hostOf, BatchTask<T> _task,
+                                    int _window, int _perHost, long _timeoutMillis, boolean _stopOnError)
+            throws InterruptedException {
+        int window = Math.max(1, Math.min(_window, maxConcurrency));
+        int perHost = Math.max(1, _perHost);
+        BlockingQueue<Step<T>> completed = new LinkedBlockingQueue<Step<T>>();
+        Set<Step<T>> inFlight = new HashSet<Step<T>>();
+        PipelineTask<T> task = (target, commands) -> Collections.singletonList(_task.run(target, commands.get(0)));
+        // Queued when a Host Slot is freed (once till it's taken)
+        Step<T> wakeUp = new Step<T>(null, 0, 0, Collections.<String>emptyList());
+        AtomicBoolean wakeUpQueued = new AtomicBoolean();
+        Runnable listener = () -> {
+            if(wakeUpQueued.compareAndSet(false, true)) {
+                completed.add(wakeUp);
+            }
+        };
+        slotListeners.add(listener);
+        int running = 0;
+        boolean stopped = false;
+        try {
+            while(true) {
+                boolean blocked = false;
+                if(!stopped) {
+                    for(int node : _run.ready()) {
+                        if(running >= window) {
+                            break;
+                        }
+                        T target = _run.getTarget(node);
+                        String host = _hostOf.apply(target);
+                        if(!acquireHostSlot(host, perHost)) {
+                            // Host is at its Limit - The other Hosts don't wait for it
+                            blocked = true;
+                            continue;
+                        }
+                        Step<T> step = new Step<T>(target, node, 1, _run.getCommands());
+                        step.hostSlot = host;
+                        _run.start(node);
+                        inFlight.add(launch(step, _hostOf, task, _timeoutMillis, completed));
+                        running++;
+                    }
+                }
+                if(running == 0 && !blocked) {
+                    return;
+                }
+                Step<T> step = completed.take();
+                if(step == wakeUp) {
+                    wakeUpQueued.set(false);
+                    continue;
+                }
+                inFlight.remove(step);
+                running--;
+                CommandResults result = step.results.get(0);
+                boolean failed = isFailed(result);
+                _run.complete(step.from, result, failed);
+                if(failed && _stopOnError && !stopped) {
+                    stopped = true;
+                    _run.skipWaiting("Skipped: "+_run.getId(step.from)+" failed (Stop on Error)");
+                }
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            log.warn("Workflow "+_run.getName()+" stopped: "+e.getMessage()+" | Cancelling "+running+" Nodes in flight");
+            for(Step<T> step : inFlight) {
+                step.cancel();
+            }
+            _run.cancel("Cancelled");
+            throw e;
+        } finally {
+            slotListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Take a Slot on the Host if it has less than the Limit in flight
+     * @param _host
+     * @param _limit
+     * @return
+     */
+    private boolean acquireHostSlot(String _host, int _limit) {
+        synchronized (hostSlots) {
+            int busy = hostSlots.getOrDefault(_host, 0);
+            if(busy >= _limit) {
+                return false;
+            }
+            hostSlots.put(_host, busy + 1);
+            return true;
+        }
+    }
+
+    /**
+     * Give the Slot back and wake up the Workflow Runs waiting for a Slot
+     * @param _host
+     */
+    private void releaseHostSlot(String _host) {
+        synchronized (hostSlots) {
+            hostSlots.computeIfPresent(_host, (host, busy) -> (busy > 1) ? busy - 1 : null);
+        }
+        for(Runnable listener : slotListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Run the Commands on the Targets in Steps (Step Size Commands per Task)
+     * A Target keeps its Slot in the Window till its last Step.
+     */
+    private <T> void run(List<String> _commands, List<T> _targets, Function<T, String> _hostOf,
+                         PipelineTask<T> _task, int _stepSize, int _window, long _timeoutMillis,
+                         boolean _stopOnError, Consumer<CommandResults> _sink) throws InterruptedException {
+        int window = Math.max(1, Math.min(_window, maxConcurrency));
+        BlockingQueue<Step<T>> completed = new LinkedBlockingQueue<Step<T>>();
+        Set<Step<T>> inFlight = new HashSet<Step<T>>();
+        Iterator<T> targets = _targets.iterator();
+        int running = 0;
+        try {
+            while(running < window && targets.hasNext()) {
+                inFlight.add(launch(new Step<T>(targets.next(), 0, _stepSize, _commands), _hostOf, _task,
+                        _timeoutMillis, completed));
+                running++;
+            }
+            while(running > 0) {
+                Step<T> step = completed.take();
+                inFlight.remove(step);
+                int next = step.from + step.commands.size();
+                boolean skip = _stopOnError && isFailed(step.results.get(step.results.size() - 1));
+                if(next < _commands.size() && !skip) {
+                    inFlight.add(launch(new Step<T>(step.target, next, _stepSize, _commands), _hostOf, _task,
+                            _timeoutMillis, completed));
+                } else if(targets.hasNext()) {
+                    inFlight.add(launch(new Step<T>(targets.next(), 0, _stepSize, _commands), _hostOf, _task,
+                            _timeoutMillis, completed));
+                } else {
+                    running--;
+                }
+                for(CommandResults result : step.results) {
+                    _sink.accept(result);
+                }
+                if(skip) {
+                    String failed = step.commands.get(step.commands.size() - 1);
+                    for(int x = next; x < _commands.size(); x++) {
+                        _sink.accept(new CommandResults(_hostOf.apply(step.target), _commands.get(x), "",
+                                "Skipped: "+failed+" failed", null, new Date()));
+                    }
+                }
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            log.warn("Fleet Execution stopped: "+e.getMessage()+" | Cancelling "+running+" Hosts in flight");
+            for(Step<T> step : inFlight) {
+                step.cancel();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns True if the Command failed (Error without an Exit Code or non zero Exit Code)
+     * @param _result
+     * @return
+     */
+    private static boolean isFailed(CommandResults _result) {
+        Integer exitCode = _result.getExitCode();
+        String error = _result.getError();
+        return (exitCode == null) ? (error != null && !error.isEmpty()) : exitCode != 0;
+    }
+
+    /**
+     * Launch the Commands of the Step on its Target with the Timeout. Waits for a free
+     * Worker, the Timeout is armed when the Task starts running.
+     * Only the first of (Task Result, Timeout) is reported. The Worker and the Host Slot
+     * are given back when the Task's Thread is done (or the Step is cancelled before it ran).
+     */
+    private <T> Step<T> launch(Step<T> _step, Function<T, String> _hostOf, PipelineTask<T> _task,
+                               long _timeoutMillis, BlockingQueue<Step<T>> _completed) throws InterruptedException {
+        AtomicBoolean reported = new AtomicBoolean();
+        _step.done = () -> {
+            workers.release();
+            if(_step.hostSlot != null) {
+                releaseHostSlot(_step.hostSlot);
+            }
+        };
+        try {
+            workers.acquire();
+        } catch (InterruptedException e) {
+            if(_step.hostSlot != null) {
+                releaseHostSlot(_step.hostSlot);
+            }
+            throw e;
+        }
+        try {
+            _step.future = executor.submit(() -> {
+                if(!_step.started.compareAndSet(false, true)) {
+                    // Cancelled before it ran
+                    return;
+                }
+                Date startTime = new Date();
+                HashedWheelTimer.Timeout timeout = timer.newTimeout(() -> {
+                    if(reported.compareAndSet(false, true)) {
+                        _step.cancel();
+                        _step.results = failed(_step, _hostOf, "Timed out after "+_timeoutMillis+" ms", startTime);
+                        _completed.add(_step);
+                    }
+                }, _timeoutMillis, TimeUnit.MILLISECONDS);
+                List<CommandResults> results;
+                // SSH Clients of the Task stop their Commands on the Step Cancel
+                CancelToken previous = CancelToken.bind(_step.cancelToken);
+                try {
+                    results = _task.run(_step.target, _step.commands);
+                } catch (Exception e) {
+                    results = failed(_step, _hostOf, String.valueOf(e.getMessage()), startTime);
+                } finally {
+                    CancelToken.bind(previous);
+                    timeout.cancel();
+                    _step.done.run();
+                }
+                if(reported.compareAndSet(false, true)) {
+                    _step.results = results;
+                    _completed.add(_step);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Executor shut down
+            _step.done.run();
+            throw e;
+        }
+        return _step;
+    }
+
+    /**
+     * Returns the Failed Results for all the Commands of the Step
+     */
+    private static <T> List<CommandResults> failed(Step<T> _step, Function<T, String> _hostOf, String _error,
+                                                   Date _startTime) {
+        List<CommandResults> results = new ArrayList<CommandResults>(_step.commands.size());
+        for(String command : _step.commands) {
+            results.add(new CommandResults(_hostOf.apply(_step.target), command, "", _error, null, _startTime));
+        }
+        return results;
+    }
+
+    /**
+     * Commands (from Index) on a Target and their Results
+     * @param <T>
+     */
+    private static final class Step<T> {
+        private final T target;
+        private final int from;
+        private final List<String> commands;
+        // Set before the Step is queued (Queue hands it over to the caller's Thread)
+        private List<CommandResults> results;
+        private final CancelToken cancelToken = new CancelToken();
+        // Set on the caller's Thread by the Submit
+        private volatile Future<?> future;
+        // Workflow Host Slot held by the Step (null = None)
+        private String hostSlot;
+        // Gives back the Worker and the Host Slot (Once, by whoever sets Started)
+        private Runnable done;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Step(T _target, int _from, int _size, List<String> _commands) {
+            target      = _target;
+            from        = _from;
+            commands    = _commands.subList(_from, Math.min(_from + _size, _commands.size()));
+        }
+
+        /**
+         * Stop the Remote Commands of the Step and its Task
+         */
+        private void cancel() {
+            cancelToken.cancel();
+            Future<?> handle = future;
+            if(handle != null) {
+                handle.cancel(true);
+            }
+            if(done != null && started.compareAndSet(false, true)) {
+                // Never ran - Its Thread won't give them back
+                done.run();
+            }
+        }
+    }
+}
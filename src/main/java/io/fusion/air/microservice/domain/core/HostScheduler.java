@@ -0,0 +1,359 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Host Scheduler - Admission in front of the SSH Sessions (See SSHClient).
+ *
+ * - Max Sessions per Host (Ex. below the Server's MaxStartups) and in Total
+ * - A freed Slot goes to the next Host with Waiters (Round Robin), and within the Host
+ *   to the next Tenant (Round Robin), FIFO within the Tenant. A busy Tenant or Host
+ *   can't starve the others.
+ * - Bounded Wait: the Request is rejected at once if the estimated Wait (Queue Ahead x
+ *   Average Hold Time / Slots) exceeds the Budget, else it waits up to the Budget.
+ *   A cold Host (no Session released yet) has no Hold Time, so there the Queue Ahead
+ *   is capped at Slots x COLD_QUEUE_PER_SLOT instead.
+ *   Rejections are RejectedExecutionException (429).
+ * - Queue Depth (on Arrival) and Wait Time Histograms per Host
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class HostScheduler {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    // Histogram Upper Bounds (Last Bucket = +Inf)
+    private static final long[] WAIT_BUCKETS  = { 0, 1, 5, 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+    private static final long[] DEPTH_BUCKETS = { 0, 1, 2, 4, 8, 16, 32, 64, 128, 256 };
+    // Weight of the latest Hold Time in the Average
+    private static final double HOLD_ALPHA = 0.2;
+    // Waiters per Slot allowed on a Host without a Hold Time (No Estimate yet)
+    private static final int COLD_QUEUE_PER_SLOT = 2;
+
+    private final int maxPerHost;
+    private final int maxTotal;
+    private final long maxWaitMillis;
+
+    // Guarded by this
+    private final LinkedHashMap<String, Host> hosts;
+    // Hosts with Waiters in Round Robin Order
+    private final ArrayDeque<Host> ring;
+    private int active;
+
+    /**
+     * Create the Host Scheduler
+     *
+     * @param _maxPerHost Sessions at once per Host
+     * @param _maxTotal Sessions at once across the Hosts
+     * @param _maxWaitMillis Wait Budget (0 = Reject when no Slot is free)
+     */
+    public HostScheduler(int _maxPerHost, int _maxTotal, long _maxWaitMillis) {
+        maxPerHost      = Math.max(1, _maxPerHost);
+        maxTotal        = Math.max(1, _maxTotal);
+        maxWaitMillis   = Math.max(0, _maxWaitMillis);
+        hosts           = new LinkedHashMap<String, Host>();
+        ring            = new ArrayDeque<Host>();
+    }
+
+    /**
+     * Acquire a Slot on the Host for the Tenant (within the Wait Budget)
+     *
+     * @param _host Ex. host:port
+     * @param _tenant Caller (Ex. the X-Tenant Header, null = Default)
+     * @return Lease to release when the Session is closed
+     * @throws RejectedExecutionException if the Host is busy beyond the Wait Budget
+     * @throws InterruptedException
+     */
+    public synchronized Lease acquire(String _host, String _tenant) throws InterruptedException {
+        Host host = hosts.computeIfAbsent(_host, Host::new);
+        String tenant = (_tenant == null) ? "" : _tenant;
+        int depth = host.queued;
+        host.depthHistogram.record(depth);
+        if(depth == 0 && host.active < maxPerHost && active < maxTotal) {
+            host.waitHistogram.record(0);
+            return grant(host);
+        }
+        if(host.completed == 0 && depth >= maxPerHost * COLD_QUEUE_PER_SLOT) {
+            host.rejected++;
+            log.warn("Host "+_host+" is busy, Request rejected: "+depth+" queued, no Hold Time yet");
+            throw new RejectedExecutionException("Host "+_host+" is busy! "+depth+" Requests queued (Max "
+                    +(maxPerHost * COLD_QUEUE_PER_SLOT)+" till a Session is done). Try again later.");
+        }
+        long estimate = (long) Math.ceil((depth + 1) / (double) maxPerHost) * Math.round(host.averageHoldMillis);
+        if(estimate > maxWaitMillis || maxWaitMillis == 0) {
+            host.rejected++;
+            log.warn("Host "+_host+" is busy, Request rejected: "+depth+" queued, Estimated Wait "+estimate+" ms");
+            throw new RejectedExecutionException("Host "+_host+" is busy! "+depth+" Requests queued (Estimated Wait "
+                    +estimate+" ms > "+maxWaitMillis+" ms). Try again later.");
+        }
+        Waiter waiter = new Waiter(host, tenant);
+        host.enqueue(waiter);
+        if(host.queued == 1) {
+            ring.add(host);
+        }
+        long start = System.currentTimeMillis();
+        long deadline = start + maxWaitMillis;
+        try {
+            while(waiter.lease == null) {
+                long wait = deadline - System.currentTimeMillis();
+                if(wait <= 0) {
+                    dequeue(waiter);
+                    host.timedOut++;
+                    log.warn("Host "+_host+" is busy, no Slot within "+maxWaitMillis+" ms");
+                    host.waitHistogram.record(System.currentTimeMillis() - start);
+                    throw new RejectedExecutionException("Host "+_host+" is busy! No Slot within "
+                            +maxWaitMillis+" ms. Try again later.");
+                }
+                wait(wait);
+            }
+        } catch (InterruptedException e) {
+            if(waiter.lease != null) {
+                // Granted meanwhile - pass the Slot on
+                release(waiter.lease);
+            } else {
+                dequeue(waiter);
+            }
+            throw e;
+        }
+        host.waitHistogram.record(System.currentTimeMillis() - start);
+        return waiter.lease;
+    }
+
+    /**
+     * Returns the Scheduler Stats (with the Histograms per Host)
+     * @return
+     */
+    public synchronized Map<String, Object> getStats() {
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("maxPerHost", maxPerHost);
+        stats.put("maxTotal", maxTotal);
+        stats.put("maxWaitMillis", maxWaitMillis);
+        stats.put("active", active);
+        int queued = 0;
+        LinkedHashMap<String, Object> perHost = new LinkedHashMap<String, Object>();
+        for(Host host : hosts.values()) {
+            queued += host.queued;
+            perHost.put(host.name, host.getStats());
+        }
+        stats.put("queued", queued);
+        stats.put("hosts", perHost);
+        return stats;
+    }
+
+    /**
+     * Release the Slot and hand it to the next Waiter
+     */
+    private synchronized void release(Lease _lease) {
+        if(_lease.released) {
+            return;
+        }
+        _lease.released = true;
+        Host host = _lease.host;
+        host.active--;
+        active--;
+        long held = System.currentTimeMillis() - _lease.startTime;
+        host.averageHoldMillis = (host.completed == 0) ? held
+                : HOLD_ALPHA * held + (1 - HOLD_ALPHA) * host.averageHoldMillis;
+        host.completed++;
+        dispatch();
+    }
+
+    /**
+     * Grant the free Slots - Next Host in the Ring, next Tenant of the Host
+     */
+    private void dispatch() {
+        int skipped = 0;
+        while(active < maxTotal && !ring.isEmpty() && skipped < ring.size()) {
+            Host host = ring.poll();
+            if(host.active >= maxPerHost) {
+                // Host at its Limit - The other Hosts don't wait for it
+                ring.add(host);
+                skipped++;
+                continue;
+            }
+            Waiter waiter = host.dequeue();
+            waiter.lease = grant(host);
+            if(host.queued > 0) {
+                ring.add(host);
+            }
+            skipped = 0;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Remove the Waiter (Timed out / Interrupted), the Ring holds only the Hosts with Waiters
+     */
+    private void dequeue(Waiter _waiter) {
+        _waiter.host.remove(_waiter);
+        if(_waiter.host.queued == 0) {
+            ring.remove(_waiter.host);
+        }
+    }
+
+    private Lease grant(Host _host) {
+        _host.active++;
+        _host.admitted++;
+        active++;
+        return new Lease(_host);
+    }
+
+    /**
+     * Slot on a Host
+     */
+    public final class Lease {
+        private final Host host;
+        private final long startTime;
+        // Guarded by the Scheduler
+        private boolean released;
+
+        private Lease(Host _host) {
+            host        = _host;
+            startTime   = System.currentTimeMillis();
+        }
+
+        /**
+         * Release the Slot (Idempotent)
+         */
+        public void release() {
+            HostScheduler.this.release(this);
+        }
+    }
+
+    /**
+     * Request waiting for a Slot
+     */
+    private static final class Waiter {
+        private final Host host;
+        private final String tenant;
+        private Lease lease;
+
+        private Waiter(Host _host, String _tenant) {
+            host    = _host;
+            tenant  = _tenant;
+        }
+    }
+
+    /**
+     * Slots, Waiters (per Tenant) and Stats of a Host (Guarded by the Scheduler)
+     */
+    private static final class Host {
+        private final String name;
+        // Tenants with Waiters in Round Robin Order
+        private final LinkedHashMap<String, ArrayDeque<Waiter>> tenants;
+        private final Histogram depthHistogram;
+        private final Histogram waitHistogram;
+        private int active;
+        private int queued;
+        private long admitted;
+        private long rejected;
+        private long timedOut;
+        private long completed;
+        private double averageHoldMillis;
+
+        private Host(String _name) {
+            name            = _name;
+            tenants         = new LinkedHashMap<String, ArrayDeque<Waiter>>();
+            depthHistogram  = new Histogram(DEPTH_BUCKETS);
+            waitHistogram   = new Histogram(WAIT_BUCKETS);
+        }
+
+        private void enqueue(Waiter _waiter) {
+            tenants.computeIfAbsent(_waiter.tenant, t -> new ArrayDeque<Waiter>()).add(_waiter);
+            queued++;
+        }
+
+        /**
+         * Head of the first Tenant, the Tenant moves to the End of the Round
+         */
+        private Waiter dequeue() {
+            Iterator<Map.Entry<String, ArrayDeque<Waiter>>> iterator = tenants.entrySet().iterator();
+            Map.Entry<String, ArrayDeque<Waiter>> first = iterator.next();
+            ArrayDeque<Waiter> waiters = first.getValue();
+            Waiter waiter = waiters.poll();
+            iterator.remove();
+            if(!waiters.isEmpty()) {
+                tenants.put(first.getKey(), waiters);
+            }
+            queued--;
+            return waiter;
+        }
+
+        private void remove(Waiter _waiter) {
+            ArrayDeque<Waiter> waiters = tenants.get(_waiter.tenant);
+            if(waiters != null && waiters.remove(_waiter)) {
+                queued--;
+                if(waiters.isEmpty()) {
+                    tenants.remove(_waiter.tenant);
+                }
+            }
+        }
+
+        private Map<String, Object> getStats() {
+            LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+            stats.put("active", active);
+            stats.put("queued", queued);
+            stats.put("tenantsWaiting", tenants.size());
+            stats.put("admitted", admitted);
+            stats.put("rejected", rejected);
+            stats.put("timedOut", timedOut);
+            stats.put("averageHoldMillis", Math.round(averageHoldMillis));
+            stats.put("queueDepth", depthHistogram.getStats());
+            stats.put("waitMillis", waitHistogram.getStats());
+            return stats;
+        }
+    }
+
+    /**
+     * Fixed Bucket Histogram (Count per Upper Bound, Guarded by the Scheduler)
+     */
+    private static final class Histogram {
+        private final long[] bounds;
+        private final long[] counts;
+        private long count;
+        private long sum;
+        private long max;
+
+        private Histogram(long[] _bounds) {
+            bounds  = _bounds;
+            counts  = new long[_bounds.length + 1];
+        }
+
+        private void record(long _value) {
+            int bucket = 0;
+            while(bucket < bounds.length && _value > bounds[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sum += _value;
+            max = Math.max(max, _value);
+        }
+
+        private Map<String, Object> getStats() {
+            LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+            stats.put("count", count);
+            stats.put("mean", (count == 0) ? 0.0 : (double) sum / count);
+            stats.put("max", max);
+            LinkedHashMap<String, Long> buckets = new LinkedHashMap<String, Long>();
+            for(int x = 0; x < bounds.length; x++) {
+                buckets.put("le_" + bounds[x], counts[x]);
+            }
+            buckets.put("le_inf", counts[bounds.length]);
+            stats.put("buckets", buckets);
+            return stats;
+        }
+    }
+}
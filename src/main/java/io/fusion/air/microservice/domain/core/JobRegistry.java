@@ -0,0 +1,227 @@
+package io.fusion.air.microservice.domain.core;
+
+import io.fusion.air.microservice.utils.HashedWheelTimer;
+import org.slf4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Job Registry - Runs the Asynchronous Command Jobs on a Bounded Executor and keeps
+ * the Job State (by Reference No.) until the Retention TTL after the Job ends.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class JobRegistry {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    /**
+     * Runs the Command for the Job
+     */
+    @FunctionalInterface
+    public interface JobRunner {
+        CommandResults run(CommandJob _job) throws Exception;
+    }
+
+    private final ConcurrentHashMap<String, CommandJob> jobs;
+    private final ThreadPoolExecutor executor;
+    private final HashedWheelTimer timer;
+    private final long ttlMillis;
+    private final SpoolPolicy spoolPolicy;
+
+    /**
+     * Create the Job Registry
+     *
+     * @param _timer
+     * @param _threads Max Concurrent Jobs
+     * @param _queueSize Max Queued Jobs
+     * @param _ttlSeconds Retention after the Job ends
+     */
+    public JobRegistry(HashedWheelTimer _timer, int _threads, int _queueSize, long _ttlSeconds) {
+        this(_timer, _threads, _queueSize, _ttlSeconds, null);
+    }
+
+    /**
+     * Create the Job Registry with the Spool Policy (Full Output of every Job is kept
+     * till the Job is evicted)
+     *
+     * @param _timer
+     * @param _threads Max Concurrent Jobs
+     * @param _queueSize Max Queued Jobs
+     * @param _ttlSeconds Retention after the Job ends
+     * @param _spoolPolicy (null = Output is not Spooled)
+     */
+    public JobRegistry(HashedWheelTimer _timer, int _threads, int _queueSize, long _ttlSeconds,
+                       SpoolPolicy _spoolPolicy) {
+        timer       = _timer;
+        spoolPolicy = _spoolPolicy;
+        ttlMillis   = TimeUnit.SECONDS.toMillis(_ttlSeconds);
+        jobs        = new ConcurrentHashMap<String, CommandJob>();
+        AtomicInteger threadNo = new AtomicInteger();
+        executor    = new ThreadPoolExecutor(_threads, _threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(_queueSize),
+                r -> {
+                    Thread t = new Thread(r, "ssh-job-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submit the Command Job
+     *
+     * @param _command
+     * @param _target
+     * @param _runner
+     * @return
+     * @throws RejectedExecutionException if the Job Queue is full
+     */
+    public CommandJob submit(String _command, String _target, JobRunner _runner) {
+        return submit(new CommandJob(UUID.randomUUID().toString(), _command, _target), _runner);
+    }
+
+    /**
+     * Submit the Workflow as a Job (The Job Status has the Progress of every Node)
+     *
+     * @param _workflow
+     * @param _targets Targets of the Workflow (for the Status)
+     * @param _runner Runs the Workflow (Results are in the Workflow)
+     * @return
+     * @throws RejectedExecutionException if the Job Queue is full
+     */
+    public CommandJob submitWorkflow(WorkflowRun<?> _workflow, String _targets, JobRunner _runner) {
+        CommandJob job = new CommandJob(UUID.randomUUID().toString(), _workflow.getName(), _targets);
+        job.setWorkflow(_workflow);
+        return submit(job, _runner);
+    }
+
+    /**
+     * Register the Job and queue it on the Executor
+     */
+    private CommandJob submit(CommandJob _job, JobRunner _runner) {
+        jobs.put(_job.getReferenceNo(), _job);
+        try {
+            _job.setFuture(executor.submit(() -> run(_job, _runner)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(_job.getReferenceNo());
+            throw e;
+        }
+        return _job;
+    }
+
+    /**
+     * Returns the Job (null if not found or evicted)
+     * @param _referenceNo
+     * @return
+     */
+    public CommandJob get(String _referenceNo) {
+        return (_referenceNo == null) ? null : jobs.get(_referenceNo);
+    }
+
+    /**
+     * Cancel the Job
+     * @param _referenceNo
+     * @return True if the Job was Queued or Running and is Cancelled now
+     */
+    public boolean cancel(String _referenceNo) {
+        CommandJob job = get(_referenceNo);
+        if(job == null || !job.cancel()) {
+            return false;
+        }
+        scheduleEviction(job);
+        return true;
+    }
+
+    /**
+     * Replace the Command of a Queued Job
+     * @param _referenceNo
+     * @param _command
+     * @return
+     */
+    public boolean update(String _referenceNo, String _command) {
+        CommandJob job = get(_referenceNo);
+        return job != null && job.updateCommand(_command);
+    }
+
+    /**
+     * Returns the Job Registry Stats
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("jobs", jobs.size());
+        stats.put("running", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", executor.getQueue().remainingCapacity() + executor.getQueue().size());
+        stats.put("completed", executor.getCompletedTaskCount());
+        return stats;
+    }
+
+    /**
+     * Shutdown the Executor
+     */
+    public void close() {
+        executor.shutdownNow();
+        for(CommandJob job : jobs.values()) {
+            job.release();
+        }
+        jobs.clear();
+    }
+
+    /**
+     * Run the Job
+     * @param _job
+     * @param _runner
+     */
+    private void run(CommandJob _job, JobRunner _runner) {
+        if(!_job.start()) {
+            // Cancelled while Queued
+            return;
+        }
+        if(spoolPolicy != null) {
+            _job.setOutput(spoolPolicy.newSpool(_job.getReferenceNo()));
+        }
+        CancelToken previous = CancelToken.bind(_job.getCancelToken());
+        try {
+            _job.complete(_runner.run(_job));
+        } catch (Exception e) {
+            if(_job.getState() == JobState.CANCELLED) {
+                log.info("Job "+_job.getReferenceNo()+" cancelled: "+e.getMessage());
+            } else {
+                log.error("Job "+_job.getReferenceNo()+" failed: "+e.getMessage());
+                _job.fail(e.getMessage());
+            }
+        } finally {
+            CancelToken.bind(previous);
+            scheduleEviction(_job);
+        }
+    }
+
+    /**
+     * Evict the Job (and release its Output) after the Retention TTL
+     * @param _job
+     */
+    private void scheduleEviction(CommandJob _job) {
+        timer.newTimeout(() -> {
+            if(jobs.remove(_job.getReferenceNo(), _job)) {
+                _job.release();
+            }
+        }, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+}
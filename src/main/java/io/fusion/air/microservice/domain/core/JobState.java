@@ -0,0 +1,40 @@
+package io.fusion.air.microservice.domain.core;
+
+/**
+ * Command Job State
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public enum JobState {
+
+    /**
+     * Waiting in the Job Queue
+     */
+    QUEUED,
+    /**
+     * Running on the Remote Host
+     */
+    RUNNING,
+    /**
+     * Completed (See the Exit Code in the Results)
+     */
+    COMPLETED,
+    /**
+     * Failed to Execute (Connection, Auth, Timeout etc.)
+     */
+    FAILED,
+    /**
+     * Cancelled by the User
+     */
+    CANCELLED;
+
+    /**
+     * Returns True if the Job will not change its State anymore
+     * @return
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
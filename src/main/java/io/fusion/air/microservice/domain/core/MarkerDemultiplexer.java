@@ -0,0 +1,172 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
+
+/**
+ * Marker Demultiplexer - Splits one Output Stream (Ex. the Std Out of a Script Bundle)
+ * back into the Output per Command. Every Command is framed by Marker Lines
+ *
+ *   \n{token} {index} B\n ... Output ... \n{token} {index} E [{exitCode}]\n
+ *
+ * The New Line before a Marker is added by the Script, so it's dropped (The Output
+ * keeps its own last New Line, or the lack of it). Bytes outside the Frames are
+ * dropped. Works on the Bytes as they arrive, only the start of a Line that could be
+ * a Marker is held back.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class MarkerDemultiplexer extends OutputStream {
+
+    // Rest of the Marker Line after the Token (Ex. "12345 E 255")
+    private static final int MAX_MARKER = 64;
+
+    /**
+     * Called on the Start (B) and the End (E) Marker of a Command
+     */
+    @FunctionalInterface
+    public interface MarkerListener {
+        void onMarker(int _index, boolean _end, Integer _exitCode);
+    }
+
+    private final byte[] prefix;
+    private final IntFunction<OutputStream> targets;
+    private final MarkerListener listener;
+    private final byte[] marker = new byte[MAX_MARKER];
+
+    // Output Stream of the Command in the Frame (null = Outside the Frames)
+    private OutputStream target;
+    // Bytes of the Prefix matched at the Line Start (-1 = the Line is Output)
+    private int matched;
+    private int markerLength;
+    // New Line held back till the next Line shows it's not the one before a Marker
+    private boolean pendingNewLine;
+
+    /**
+     * Create the Demultiplexer
+     *
+     * @param _token Unique Token of the Markers
+     * @param _targets Output Stream of the Command (Index)
+     * @param _listener
+     */
+    public MarkerDemultiplexer(String _token, IntFunction<OutputStream> _targets, MarkerListener _listener) {
+        prefix      = (_token + " ").getBytes(StandardCharsets.US_ASCII);
+        targets     = _targets;
+        listener    = _listener;
+    }
+
+    @Override
+    public void write(int _byte) {
+        write(new byte[] { (byte) _byte }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] _bytes, int _offset, int _length) {
+        int end = _offset + _length;
+        int x = _offset;
+        while(x < end) {
+            if(matched < 0) {
+                // Output till the End of the Line
+                int start = x;
+                while(x < end && _bytes[x] != '\n') {
+                    x++;
+                }
+                if(x > start) {
+                    emitPendingNewLine();
+                    emit(_bytes, start, x - start);
+                }
+                if(x < end) {
+                    emitPendingNewLine();
+                    pendingNewLine = true;
+                    matched = 0;
+                    x++;
+                }
+            } else if(matched < prefix.length) {
+                if(_bytes[x] == prefix[matched]) {
+                    matched++;
+                    x++;
+                } else {
+                    notMarker();
+                }
+            } else if(_bytes[x] == '\n') {
+                x++;
+                if(!onMarkerLine()) {
+                    // Line is Output, its New Line too
+                    emitPendingNewLine();
+                    pendingNewLine = true;
+                    matched = 0;
+                }
+            } else if(markerLength < MAX_MARKER) {
+                marker[markerLength++] = _bytes[x++];
+            } else {
+                notMarker();
+            }
+        }
+    }
+
+    /**
+     * The Line started like a Marker but isn't one - Flush it as Output
+     */
+    private void notMarker() {
+        emitPendingNewLine();
+        emit(prefix, 0, Math.min(matched, prefix.length));
+        emit(marker, 0, markerLength);
+        matched = -1;
+        markerLength = 0;
+    }
+
+    /**
+     * Parse the Marker Line ({index} B | {index} E [{exitCode}])
+     * @return False if it's not a Marker Line
+     */
+    private boolean onMarkerLine() {
+        String[] fields = new String(marker, 0, markerLength, StandardCharsets.US_ASCII).trim().split(" ");
+        int length = markerLength;
+        markerLength = 0;
+        try {
+            int index = Integer.parseInt(fields[0]);
+            boolean start = fields.length == 2 && "B".equals(fields[1]);
+            boolean stop = (fields.length == 2 || fields.length == 3) && "E".equals(fields[1]);
+            if(start || stop) {
+                Integer exitCode = (fields.length == 3) ? Integer.valueOf(fields[2]) : null;
+                // The New Line before the Marker was added by the Script
+                pendingNewLine = false;
+                matched = 0;
+                target  = start ? targets.apply(index) : null;
+                listener.onMarker(index, stop, exitCode);
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            // Output that looks like a Marker
+        }
+        emitPendingNewLine();
+        emit(prefix, 0, prefix.length);
+        emit(marker, 0, length);
+        matched = -1;
+        return false;
+    }
+
+    private void emitPendingNewLine() {
+        if(pendingNewLine) {
+            pendingNewLine = false;
+            emit(new byte[] { '\n' }, 0, 1);
+        }
+    }
+
+    /**
+     * Output of the Current Command (Dropped outside the Frames)
+     */
+    private void emit(byte[] _bytes, int _offset, int _length) {
+        if(target != null && _length > 0) {
+            try {
+                target.write(_bytes, _offset, _length);
+            } catch (IOException e) {
+                // Captures don't fail, drop the Output
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output Capture - Keeps the Head (first N Bytes) and the Tail (last M Bytes, Ring
+ * Buffer) of the Output. The Bytes in between are dropped and only counted.
+ * Buffers come from the Capture Policy, grow with the Output (up to the Policy's Head /
+ * Tail Bytes) and go back to the Policy on release(). close() only
+ * stops the Writes (SSHD closes the Channel's Output Stream when the Channel closes,
+ * and the Output is read after that).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class OutputCapture extends OutputStream {
+
+    private final CapturePolicy policy;
+    private byte[] head;
+    private byte[] tail;
+    private int headCount;
+    // Ring Buffer: Next Write Position and the Bytes kept
+    private int tailEnd;
+    private int tailSize;
+
+    private long totalBytes;
+    private long totalLines;
+    private long droppedBytes;
+    private long droppedLines;
+    private boolean closed;
+    private boolean released;
+
+    OutputCapture(CapturePolicy _policy, byte[] _head, byte[] _tail) {
+        policy  = _policy;
+        head    = _head;
+        tail    = _tail;
+    }
+
+    @Override
+    public void write(int _byte) {
+        write(new byte[] { (byte) _byte }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] _bytes, int _offset, int _length) {
+        if(closed || _length <= 0) {
+            return;
+        }
+        totalBytes += _length;
+        totalLines += newLines(_bytes, _offset, _length);
+        int toHead = Math.min(_length, policy.getHeadBytes() - headCount);
+        if(toHead > 0) {
+            if(headCount + toHead > head.length) {
+                head = policy.grow(head, headCount, headCount + toHead, true);
+            }
+            System.arraycopy(_bytes, _offset, head, headCount, toHead);
+            headCount += toHead;
+            _offset += toHead;
+            _length -= toHead;
+        }
+        if(_length > 0) {
+            writeTail(_bytes, _offset, _length);
+        }
+    }
+
+    /**
+     * Drop the last Bytes written (Ex. the End Marker of the Sentinel Shell)
+     * @param _bytes
+     */
+    synchronized void truncate(int _bytes) {
+        int remove = (int) Math.min(_bytes, totalBytes);
+        totalBytes -= remove;
+        int fromTail = Math.min(remove, tailSize);
+        for(int x = 0; x < fromTail; x++) {
+            tailEnd = (tailEnd - 1 + tail.length) % tail.length;
+            if(tail[tailEnd] == '\n') {
+                totalLines--;
+            }
+        }
+        tailSize -= fromTail;
+        remove -= fromTail;
+        int fromDropped = (int) Math.min(remove, droppedBytes);
+        droppedBytes -= fromDropped;
+        remove -= fromDropped;
+        int fromHead = Math.min(remove, headCount);
+        totalLines -= newLines(head, headCount - fromHead, fromHead);
+        headCount -= fromHead;
+    }
+
+    /**
+     * Clear the Capture for the next Command (Keeps the Buffers)
+     */
+    public synchronized void reset() {
+        headCount = tailEnd = tailSize = 0;
+        totalBytes = totalLines = droppedBytes = droppedLines = 0;
+    }
+
+    /**
+     * Returns True if Bytes were dropped between the Head and the Tail
+     * @return
+     */
+    public synchronized boolean isTruncated() {
+        return droppedBytes > 0;
+    }
+
+    /**
+     * Returns the Truncation (null if nothing was dropped)
+     * @return
+     */
+    public synchronized OutputTruncation getTruncation() {
+        return (droppedBytes == 0) ? null
+                : new OutputTruncation(totalBytes, totalLines, droppedBytes, droppedLines);
+    }
+
+    /**
+     * Returns Head + Tail (The dropped Bytes are only counted, See getTruncation)
+     * @return
+     */
+    public synchronized byte[] toByteArray() {
+        byte[] bytes = new byte[headCount + tailSize];
+        System.arraycopy(head, 0, bytes, 0, headCount);
+        int start = (tail.length == 0) ? 0 : (tailEnd - tailSize + tail.length) % tail.length;
+        int first = Math.min(tailSize, tail.length - start);
+        System.arraycopy(tail, start, bytes, headCount, first);
+        System.arraycopy(tail, 0, bytes, headCount + first, tailSize - first);
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return new String(toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * No more Writes (The Output is kept till release())
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    /**
+     * Returns the Buffers to the Pool (Capture can't be used after this)
+     */
+    public synchronized void release() {
+        closed = true;
+        if(released) {
+            return;
+        }
+        released = true;
+        policy.release(head, tail);
+        head = tail = new byte[0];
+        headCount = tailEnd = tailSize = 0;
+    }
+
+    /**
+     * Write to the Ring Buffer. The oldest Bytes make room for the new ones.
+     */
+    private void writeTail(byte[] _bytes, int _offset, int _length) {
+        if(tail.length < policy.getTailBytes() && tailSize + _length > tail.length) {
+            // Below the Limit the Ring never wrapped, the Bytes are at [0, tailSize)
+            tail = policy.grow(tail, tailSize, tailSize + _length, false);
+            tailEnd = tailSize;
+        }
+        int capacity = tail.length;
+        if(_length >= capacity) {
+            // Everything in the Ring + the start of this Chunk is dropped
+            if(capacity > 0) {
+                drop(tail, (tailEnd - tailSize + capacity) % capacity, capacity, tailSize);
+            }
+            int skip = _length - capacity;
+            droppedBytes += skip;
+            droppedLines += newLines(_bytes, _offset, skip);
+            if(capacity > 0) {
+                System.arraycopy(_bytes, _offset + skip, tail, 0, capacity);
+            }
+            tailEnd = 0;
+            tailSize = capacity;
+            return;
+        }
+        int overflow = tailSize + _length - capacity;
+        if(overflow > 0) {
+            int start = (tailEnd - tailSize + capacity) % capacity;
+            drop(tail, start, capacity, overflow);
+            tailSize -= overflow;
+        }
+        int first = Math.min(_length, capacity - tailEnd);
+        System.arraycopy(_bytes, _offset, tail, tailEnd, first);
+        System.arraycopy(_bytes, _offset + first, tail, 0, _length - first);
+        tailEnd = (tailEnd + _length) % capacity;
+        tailSize += _length;
+    }
+
+    /**
+     * Count the Bytes (and Lines) dropped from the Ring, starting at the Position
+     */
+    private void drop(byte[] _ring, int _start, int _capacity, int _count) {
+        if(_count <= 0) {
+            return;
+        }
+        int first = Math.min(_count, _capacity - _start);
+        droppedBytes += _count;
+        droppedLines += newLines(_ring, _start, first) + newLines(_ring, 0, _count - first);
+    }
+
+    private static int newLines(byte[] _bytes, int _offset, int _length) {
+        int lines = 0;
+        for(int x = _offset; x < _offset + _length; x++) {
+            if(_bytes[x] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,303 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Output Spool - Keeps the Full Output of a Job. The Output stays in Memory up to the
+ * Threshold and spills to a File after that. Reads (Byte or Line Ranges) are served
+ * from the Memory Buffer or from a Memory Mapped Region of the File, so the Output
+ * never comes onto the Heap as a whole.
+ *
+ * The Line Index is built while the Bytes are written. It keeps the Offset of every
+ * Nth Line (INDEX_INTERVAL), so a Line is found with one Index lookup and a scan of
+ * at most N Lines.
+ *
+ * Reads are allowed while the Job is still writing (up to the Bytes written so far).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class OutputSpool extends OutputStream {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    // Line Offset kept for every Nth Line
+    static final int INDEX_INTERVAL = 64;
+    // Max Bytes Mapped at a time
+    private static final long MAX_MAP_BYTES = 64L * 1024 * 1024;
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final String referenceNo;
+    private final File file;
+    private final int memoryBytes;
+    private final long maxBytes;
+
+    private byte[] memory;
+    private FileChannel channel;
+    private OutputStream fileOut;
+    private long size;
+    private long newLines;
+    private boolean endsWithNewLine;
+    private long droppedBytes;
+    // index[k] = Offset of the Line (k * INDEX_INTERVAL)
+    private long[] index;
+    private int indexCount;
+    private boolean closed;
+
+    /**
+     * Create the Output Spool
+     *
+     * @param _referenceNo
+     * @param _file Spill File (Created on Spill)
+     * @param _memoryBytes Bytes kept in Memory before the Spill
+     * @param _maxBytes Max Bytes kept (0 = No Limit), the rest is counted and dropped
+     */
+    OutputSpool(String _referenceNo, File _file, int _memoryBytes, long _maxBytes) {
+        referenceNo = _referenceNo;
+        file        = _file;
+        memoryBytes = Math.max(0, _memoryBytes);
+        maxBytes    = _maxBytes;
+        memory      = new byte[Math.min(memoryBytes, 4 * 1024)];
+        index       = new long[16];
+        indexCount  = 1;
+    }
+
+    @Override
+    public void write(int _byte) throws IOException {
+        write(new byte[] { (byte) _byte }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] _bytes, int _offset, int _length) throws IOException {
+        if(closed) {
+            throw new IOException("Output "+referenceNo+" is closed");
+        }
+        int accept = (maxBytes > 0) ? (int) Math.min(_length, Math.max(0, maxBytes - size)) : _length;
+        droppedBytes += _length - accept;
+        if(accept <= 0) {
+            return;
+        }
+        for(int x = _offset; x < _offset + accept; x++) {
+            if(_bytes[x] == '\n' && ++newLines % INDEX_INTERVAL == 0) {
+                addIndex(size + (x - _offset) + 1);
+            }
+        }
+        if(channel == null && size + accept <= memoryBytes) {
+            if(size + accept > memory.length) {
+                memory = Arrays.copyOf(memory, (int) Math.min(memoryBytes, Math.max(size + accept, memory.length * 2L)));
+            }
+            System.arraycopy(_bytes, _offset, memory, (int) size, accept);
+        } else {
+            if(channel == null) {
+                spill();
+            }
+            fileOut.write(_bytes, _offset, accept);
+        }
+        size += accept;
+        endsWithNewLine = _bytes[_offset + accept - 1] == '\n';
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if(fileOut != null && !closed) {
+            fileOut.flush();
+        }
+    }
+
+    /**
+     * Returns the Bytes kept
+     * @return
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the Lines kept (The last Line may not end with a New Line)
+     * @return
+     */
+    public synchronized long getLineCount() {
+        return newLines + ((size > 0 && !endsWithNewLine) ? 1 : 0);
+    }
+
+    /**
+     * Returns True if the Output spilled to the File
+     * @return
+     */
+    public synchronized boolean isSpilled() {
+        return channel != null;
+    }
+
+    /**
+     * Returns the Spool Status
+     * @return
+     */
+    public synchronized Map<String, Object> getStatus() {
+        LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("Bytes", size);
+        status.put("Lines", getLineCount());
+        status.put("Spilled", channel != null);
+        if(droppedBytes > 0) {
+            status.put("DroppedBytes", droppedBytes);
+        }
+        return status;
+    }
+
+    /**
+     * Returns the Offset where the Line starts (0 based, Size if beyond the last Line)
+     *
+     * @param _line
+     * @return
+     * @throws IOException
+     */
+    public long offsetOfLine(long _line) throws IOException {
+        long start;
+        long skip;
+        long end;
+        synchronized (this) {
+            if(_line <= 0) {
+                return 0;
+            }
+            if(_line >= getLineCount()) {
+                return size;
+            }
+            int slot = (int) (_line / INDEX_INTERVAL);
+            start = index[slot];
+            skip = _line - (long) slot * INDEX_INTERVAL;
+            end = (slot + 1 < indexCount) ? index[slot + 1] : size;
+        }
+        // Scan (at most INDEX_INTERVAL Lines) for the Line Start
+        long position = start;
+        while(skip > 0 && position < end) {
+            ByteBuffer view = view(position, Math.min(end - position, MAX_MAP_BYTES));
+            while(view.hasRemaining()) {
+                position++;
+                if(view.get() == '\n' && --skip == 0) {
+                    break;
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Write the Lines [_fromLine, _toLine) (0 based) to the Output Stream
+     *
+     * @param _fromLine
+     * @param _toLine
+     * @param _out
+     * @return Bytes written
+     * @throws IOException
+     */
+    public long transferLines(long _fromLine, long _toLine, OutputStream _out) throws IOException {
+        return transferTo(offsetOfLine(_fromLine), offsetOfLine(_toLine), _out);
+    }
+
+    /**
+     * Write the Bytes [_from, _to) to the Output Stream
+     *
+     * @param _from
+     * @param _to
+     * @param _out
+     * @return Bytes written
+     * @throws IOException
+     */
+    public long transferTo(long _from, long _to, OutputStream _out) throws IOException {
+        long to = Math.min(_to, getSize());
+        long position = Math.max(0, _from);
+        byte[] buffer = null;
+        while(position < to) {
+            ByteBuffer view = view(position, Math.min(to - position, MAX_MAP_BYTES));
+            position += view.remaining();
+            if(view.hasArray()) {
+                _out.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+                continue;
+            }
+            if(buffer == null) {
+                buffer = new byte[COPY_BUFFER_SIZE];
+            }
+            while(view.hasRemaining()) {
+                int length = Math.min(buffer.length, view.remaining());
+                view.get(buffer, 0, length);
+                _out.write(buffer, 0, length);
+            }
+        }
+        return Math.max(0, to - Math.max(0, _from));
+    }
+
+    /**
+     * Delete the Spill File (Spool can't be used after this).
+     * Regions already Mapped stay readable till they are garbage collected.
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        memory = null;
+        index = null;
+        if(channel != null) {
+            try {
+                fileOut.close();
+            } catch (IOException e) {
+                log.warn("Output "+referenceNo+" Spill File close failed: "+e.getMessage());
+            }
+            if(!file.delete()) {
+                log.warn("Output "+referenceNo+" Unable to delete "+file);
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Returns a View of the Region (Memory Buffer or a Mapped Region of the File)
+     */
+    private synchronized ByteBuffer view(long _position, long _length) throws IOException {
+        if(closed) {
+            throw new IOException("Output "+referenceNo+" is no longer available");
+        }
+        if(channel == null) {
+            return ByteBuffer.wrap(memory, (int) _position, (int) _length).slice();
+        }
+        fileOut.flush();
+        return channel.map(FileChannel.MapMode.READ_ONLY, _position, _length);
+    }
+
+    /**
+     * Move the Output in Memory to the Spill File
+     */
+    private void spill() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileOut = new BufferedOutputStream(Channels.newOutputStream(channel), FILE_BUFFER_SIZE);
+        fileOut.write(memory, 0, (int) size);
+        memory = null;
+        log.info("Output "+referenceNo+" spilled to "+file+" after "+size+" Bytes");
+    }
+
+    private void addIndex(long _offset) {
+        if(indexCount == index.length) {
+            index = Arrays.copyOf(index, indexCount * 2);
+        }
+        index[indexCount++] = _offset;
+    }
+}
@@ -0,0 +1,58 @@
+package io.fusion.air.microservice.domain.core;
+
+/**
+ * Output Truncation - What was dropped from the middle of the Output
+ * (Head and Tail are kept as is)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class OutputTruncation {
+
+    private final long totalBytes;
+    private final long totalLines;
+    private final long droppedBytes;
+    private final long droppedLines;
+
+    /**
+     * Create the Output Truncation
+     *
+     * @param _totalBytes Bytes produced by the Command
+     * @param _totalLines Lines (New Lines) produced by the Command
+     * @param _droppedBytes Bytes dropped between the Head and the Tail
+     * @param _droppedLines Lines (New Lines) dropped between the Head and the Tail
+     */
+    public OutputTruncation(long _totalBytes, long _totalLines, long _droppedBytes, long _droppedLines) {
+        totalBytes      = _totalBytes;
+        totalLines      = _totalLines;
+        droppedBytes    = _droppedBytes;
+        droppedLines    = _droppedLines;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getTotalLines() {
+        return totalLines;
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    public long getDroppedLines() {
+        return droppedLines;
+    }
+
+    public String toJSONString() {
+        return "{\"totalBytes\": " + totalBytes + ",\"totalLines\": " + totalLines
+                + ",\"droppedBytes\": " + droppedBytes + ",\"droppedLines\": " + droppedLines + "}";
+    }
+
+    @Override
+    public String toString() {
+        return "[" + droppedBytes + " Bytes / " + droppedLines + " Lines truncated]";
+    }
+}
@@ -0,0 +1,146 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pooled Session - An Authenticated ClientSession managed by the SSHSessionPool
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class PooledSession {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final SSHSessionPool.Key key;
+    private final ClientSession session;
+    private final long createdTime;
+    private volatile long lastUsedTime;
+    private volatile long lastKeepAliveTime;
+    // Persistent Shell, kept open across Borrows
+    private SentinelShell shell;
+
+    /**
+     * Create the Pooled Session
+     * @param _key
+     * @param _session
+     */
+    PooledSession(SSHSessionPool.Key _key, ClientSession _session) {
+        key                 = _key;
+        session             = _session;
+        createdTime         = System.currentTimeMillis();
+        lastUsedTime        = createdTime;
+        lastKeepAliveTime   = createdTime;
+    }
+
+    /**
+     * Returns the Pool Key
+     * @return
+     */
+    public SSHSessionPool.Key getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the Client Session
+     * @return
+     */
+    public ClientSession getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the Created Time
+     * @return
+     */
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    /**
+     * Returns the Last Used Time
+     * @return
+     */
+    public long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    /**
+     * Returns the Last Keep Alive Time
+     * @return
+     */
+    public long getLastKeepAliveTime() {
+        return lastKeepAliveTime;
+    }
+
+    /**
+     * Returns the Persistent Shell for the Session (Opened on first use)
+     * @param _timeoutSeconds
+     * @return
+     * @throws IOException
+     */
+    public SentinelShell getShell(long _timeoutSeconds) throws IOException {
+        return getShell(_timeoutSeconds, CapturePolicy.DEFAULT);
+    }
+
+    /**
+     * Returns the Persistent Shell for the Session (Opened on first use with the Policy)
+     * @param _timeoutSeconds
+     * @param _policy
+     * @return
+     * @throws IOException
+     */
+    public synchronized SentinelShell getShell(long _timeoutSeconds, CapturePolicy _policy) throws IOException {
+        if(shell == null || !shell.isOpen()) {
+            if(shell != null) {
+                shell.close();
+            }
+            log.info("Opening the Persistent Shell for "+key);
+            shell = new SentinelShell(key.getHost(), session, _timeoutSeconds, _policy);
+        }
+        return shell;
+    }
+
+    /**
+     * Mark the Session as Used
+     * @param _now
+     */
+    void touch(long _now) {
+        lastUsedTime = _now;
+        lastKeepAliveTime = _now;
+    }
+
+    /**
+     * Mark the Keep Alive
+     * @param _now
+     */
+    void keepAlive(long _now) {
+        lastKeepAliveTime = _now;
+    }
+
+    /**
+     * Close the Session
+     */
+    void close() {
+        log.info("Closing the Pooled Session "+key);
+        synchronized (this) {
+            if(shell != null) {
+                shell.close();
+                shell = null;
+            }
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the Pooled Session "+key+": "+e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.common.SshConstants;
+import org.apache.sshd.common.channel.Channel;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Remote Cancel - Stops the Remote Command of a Channel at once.
+ * Sends the Signal Request (RFC 4254 6.9, Servers that don't support it ignore it) and
+ * closes the Channel. The Close is graceful: it's sent right after the Signal and the
+ * Server frees its Session Slot on it, the Session stays open for the next Command.
+ * Closing the Channel also closes the Pipes of the Remote Command (no PTY = no SIGHUP).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+final class RemoteCancel {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    // Signal Name without the SIG Prefix
+    static final String SIGNAL_TERM = "TERM";
+
+    private RemoteCancel() {
+    }
+
+    /**
+     * Signal the Remote Command (if it's still running) and close the Channel
+     * @param _channel
+     */
+    static void abort(Channel _channel) {
+        if(_channel == null) {
+            return;
+        }
+        if(_channel.isOpen() && !_channel.isClosing()) {
+            signal(_channel, SIGNAL_TERM);
+        }
+        _channel.close(false);
+    }
+
+    /**
+     * Send the Signal Request (No Reply)
+     * @param _channel
+     * @param _signal Ex. TERM, INT, KILL
+     * @return False if the Request couldn't be sent
+     */
+    static boolean signal(Channel _channel, String _signal) {
+        try {
+            Buffer buffer = _channel.getSession().createBuffer(SshConstants.SSH_MSG_CHANNEL_REQUEST, 32);
+            buffer.putInt(_channel.getRecipient());
+            buffer.putString("signal");
+            buffer.putBoolean(false);
+            buffer.putString(_signal);
+            _channel.writePacket(buffer);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to send the Signal "+_signal+": "+e.getMessage());
+            return false;
+        }
+    }
+}
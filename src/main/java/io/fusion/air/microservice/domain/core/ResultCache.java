@@ -0,0 +1,215 @@
+package io.fusion.air.microservice.domain.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Result Cache - Command Results of the Idempotent Commands (Ex. uname -a, nproc)
+ * keyed by (Target, Trimmed Command). Commands opt in through the Allow List
+ * with a TTL per Pattern
+ * <pre>
+ * uname( -a)?=3600;cat /etc/os-release=3600;nproc=3600
+ * </pre>
+ * The Cache is bounded by the (approx.) Memory of the Results and evicts the least
+ * recently used Results first. Only the successful Results (Exit Code 0) are cached.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ResultCache {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final String KEY_SEPARATOR = "\u0000";
+
+    /**
+     * Cached Command Results with the Expiry Time (TTL of the matching Pattern)
+     */
+    private static final class Entry {
+        private final CommandResults results;
+        private final long expiryTime;
+
+        private Entry(CommandResults _results, long _expiryTime) {
+            results     = _results;
+            expiryTime  = _expiryTime;
+        }
+    }
+
+    private final List<Pattern> patterns;
+    private final List<Long> ttls;
+    private final Cache<String, Entry> cache;
+    private final long maxBytes;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong expired;
+
+    /**
+     * Create the Result Cache
+     *
+     * @param _allowList pattern=ttlSeconds;pattern=ttlSeconds... (Empty = Nothing is cached)
+     * @param _maxKiloBytes Memory Cap for the Cached Results
+     */
+    public ResultCache(String _allowList, long _maxKiloBytes) {
+        patterns    = new ArrayList<Pattern>();
+        ttls        = new ArrayList<Long>();
+        maxBytes    = _maxKiloBytes * 1024;
+        hits        = new AtomicLong();
+        misses      = new AtomicLong();
+        expired     = new AtomicLong();
+        long maxTtl = 0;
+        if(_allowList != null) {
+            for(String rule : _allowList.split(";")) {
+                if(rule.trim().isEmpty()) {
+                    continue;
+                }
+                int eq = rule.lastIndexOf('=');
+                if(eq <= 0) {
+                    throw new IllegalArgumentException("Invalid Cache Rule (pattern=ttlSeconds): "+rule);
+                }
+                long ttl = TimeUnit.SECONDS.toMillis(Long.parseLong(rule.substring(eq + 1).trim()));
+                patterns.add(Pattern.compile(rule.substring(0, eq).trim()));
+                ttls.add(ttl);
+                maxTtl = Math.max(maxTtl, ttl);
+            }
+        }
+        // Per Pattern TTL is checked on the Lookup, the longest TTL clears the left overs
+        cache       = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> weight(key, entry.results))
+                .expireAfterWrite(Math.max(maxTtl, 1), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        log.info("Result Cache Rules = "+patterns.size()+" Max Memory = "+_maxKiloBytes+" KB");
+    }
+
+    /**
+     * Returns the TTL (ms) for the Command (0 = Not Cacheable)
+     * @param _command
+     * @return
+     */
+    public long ttlOf(String _command) {
+        if(_command == null) {
+            return 0;
+        }
+        String command = _command.trim();
+        for(int x = 0; x < patterns.size(); x++) {
+            if(patterns.get(x).matcher(command).matches()) {
+                return ttls.get(x);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the Cached Results or runs the Command (and caches the Results)
+     *
+     * @param _target
+     * @param _command
+     * @param _execution Runs the Command (on the caller's Thread)
+     * @return
+     */
+    public CommandResults execute(String _target, String _command, Supplier<CommandResults> _execution) {
+        long ttl = ttlOf(_command);
+        if(ttl <= 0) {
+            return _execution.get();
+        }
+        String key = key(_target, _command);
+        Entry entry = cache.getIfPresent(key);
+        if(entry != null) {
+            if(entry.expiryTime > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.results.asCached();
+            }
+            expired.incrementAndGet();
+            cache.asMap().remove(key, entry);
+        }
+        misses.incrementAndGet();
+        CommandResults results = _execution.get();
+        if(results != null && results.getExitCode() != null && results.getExitCode() == 0) {
+            cache.put(key, new Entry(results, System.currentTimeMillis() + ttl));
+        }
+        return results;
+    }
+
+    /**
+     * Invalidate the Cached Results
+     *
+     * @param _target (null = All Targets)
+     * @param _command (null = All Commands)
+     * @return No. of Results removed
+     */
+    public int invalidate(String _target, String _command) {
+        if(_target != null && _command != null) {
+            return (cache.asMap().remove(key(_target, _command)) != null) ? 1 : 0;
+        }
+        String command = (_command == null) ? null : KEY_SEPARATOR + _command.trim();
+        String target = (_target == null) ? null : _target + KEY_SEPARATOR;
+        int removed = 0;
+        for(String key : cache.asMap().keySet()) {
+            if((target == null || key.startsWith(target)) && (command == null || key.endsWith(command))) {
+                if(cache.asMap().remove(key) != null) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the Cache Stats
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        LinkedHashMap<String, Object> map = new LinkedHashMap<String, Object>();
+        map.put("rules", patterns.size());
+        map.put("size", cache.size());
+        map.put("maxBytes", maxBytes);
+        map.put("hits", hitCount);
+        map.put("misses", missCount);
+        map.put("hitRatio", (hitCount + missCount == 0) ? 0.0 : (double) hitCount / (hitCount + missCount));
+        map.put("expired", expired.get());
+        map.put("evicted", stats.evictionCount());
+        return map;
+    }
+
+    /**
+     * Key on the exact (trimmed) Command - the White Spaces within are significant
+     */
+    private static String key(String _target, String _command) {
+        return _target + KEY_SEPARATOR + _command.trim();
+    }
+
+    /**
+     * Approx. Memory of the Cached Results (2 Bytes per Char, Output Bytes + Line Index
+     * and the Object Overhead)
+     */
+    private static int weight(String _key, CommandResults _results) {
+        long chars = _key.length() + length(_results.getCommand())
+                + length(_results.getError()) + length(_results.getHost());
+        long output = _results.getResultSize() + 4L * (_results.getLineCount() + 1);
+        return (int) Math.min(Integer.MAX_VALUE, 128 + chars * 2 + output);
+    }
+
+    private static int length(String _value) {
+        return (_value == null) ? 0 : _value.length();
+    }
+}
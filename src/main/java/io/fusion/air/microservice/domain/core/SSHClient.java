@@ -1,17 +1,26 @@
 package io.fusion.air.microservice.domain.core;
 
 import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.channel.ChannelExec;
 import org.apache.sshd.client.channel.ClientChannel;
 import org.apache.sshd.client.channel.ClientChannelEvent;
 import org.apache.sshd.client.session.ClientSession;
 import org.apache.sshd.common.channel.Channel;
+import org.apache.sshd.common.channel.ChannelPipedInputStream;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import java.io.ByteArrayOutputStream;
@@ -29,6 +38,12 @@ public class SSHClient {
     // Set Logger -> Lookup will automatically determine the class name.
     private static final Logger log = getLogger(lookup().lookupClass());
 
+    // Read Buffer (Streaming) and the Std Error kept in Memory
+    private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+    private static final int STREAM_MAX_ERROR = 64 * 1024;
+    // Waits for the Remote check the Cancel (and the Thread Interrupt) this often
+    private static final long CANCEL_POLL_MILLIS = 50;
+
     private final String username;
     private final String password;
     private final int port;
@@ -36,6 +51,20 @@ public class SSHClient {
     private final long defaultTimeoutSeconds;
 
     private String command;
+    private ExecMode execMode = ExecMode.SHELL;
+    private CapturePolicy capturePolicy = CapturePolicy.DEFAULT;
+
+    // Shared SSH Engine (null = Private SshClient per SSHClient)
+    private final SSHEngine engine;
+    // Shared Session Pool (null = New Session per SSHClient)
+    private final SSHSessionPool sessionPool;
+    private PooledSession pooledSession;
+    private boolean sessionFailed;
+    // Per Host Admission (null = None), the Lease is held as long as the Session
+    private HostScheduler scheduler;
+    private HostScheduler.Lease lease;
+    // Fair Share Key of the Scheduler (null = the SSH User)
+    private String tenant;
 
     // Store Results
     private ArrayList<CommandResults> resultArray;
@@ -43,8 +72,15 @@ public class SSHClient {
     // SSH Client Objects --------------------------------------------
     private SshClient client;
     private ClientSession clientSession;
-    private ByteArrayOutputStream responseStream;
+    private OutputCapture responseStream;
     private ClientChannel channel;
+    private SentinelShell sentinelShell;
+
+    // Running Commands - Stopped by cancel() from any Thread
+    private final Set<ClientChannel> activeChannels = ConcurrentHashMap.newKeySet();
+    private volatile SentinelShell activeShell;
+    private volatile boolean cancelled;
+    private boolean registered;
 
     /**
      * Create the SSHClient Object
@@ -57,6 +93,54 @@ public class SSHClient {
      */
     public SSHClient(String _username, String _password,
                      String _host, int _port, long _defaultTimeoutSeconds) {
+        this(null, null, _username, _password, _host, _port, _defaultTimeoutSeconds);
+    }
+
+    /**
+     * Create the SSHClient Object using the Shared SSH Engine
+     *
+     * @param _engine
+     * @param _username
+     * @param _password
+     * @param _host
+     * @param _port
+     * @param _defaultTimeoutSeconds
+     */
+    public SSHClient(SSHEngine _engine, String _username, String _password,
+                     String _host, int _port, long _defaultTimeoutSeconds) {
+        this(_engine, null, _username, _password, _host, _port, _defaultTimeoutSeconds);
+    }
+
+    /**
+     * Create the SSHClient Object using the Shared Session Pool
+     *
+     * @param _sessionPool
+     * @param _username
+     * @param _password
+     * @param _host
+     * @param _port
+     * @param _defaultTimeoutSeconds
+     */
+    public SSHClient(SSHSessionPool _sessionPool, String _username, String _password,
+                     String _host, int _port, long _defaultTimeoutSeconds) {
+        this(_sessionPool.getEngine(), _sessionPool, _username, _password, _host, _port, _defaultTimeoutSeconds);
+    }
+
+    /**
+     * Create the SSHClient Object
+     *
+     * @param _engine
+     * @param _sessionPool
+     * @param _username
+     * @param _password
+     * @param _host
+     * @param _port
+     * @param _defaultTimeoutSeconds
+     */
+    private SSHClient(SSHEngine _engine, SSHSessionPool _sessionPool, String _username, String _password,
+                     String _host, int _port, long _defaultTimeoutSeconds) {
+        engine   = _engine;
+        sessionPool = _sessionPool;
         username = _username;
         password = _password;
         host     = _host;
@@ -69,7 +153,15 @@ public class SSHClient {
      * Start the Client
      */
     public SshClient clientStart() {
-        if(client == null) {
+        CancelToken token = CancelToken.current();
+        if(token != null && !registered) {
+            // Job / Fleet Task Cancel stops the Command of this Client
+            registered = true;
+            token.onCancel(this::cancel);
+        }
+        if(client == null && engine != null) {
+            client = engine.getClient();
+        } else if(client == null) {
             log.info("Setting SSH Default Client");
             client = SshClient.setUpDefaultClient();
             client.start();
@@ -79,12 +171,15 @@ public class SSHClient {
 
     /**
      * Stop the Client
+     * The Shared SSH Engine is NOT stopped. It lives as long as the Service.
      */
     public void clientStop() {
+        closeChannel();
+        closeSession();
         if(client != null) {
-            closeChannel();
-            closeSession();
-            client.stop();
+            if(engine == null) {
+                client.stop();
+            }
             client = null;
         }
     }
@@ -104,28 +199,78 @@ public class SSHClient {
      * @throws IOException
      */
     public ClientSession createSession() throws IOException {
-        clientStart();
-        clientSession = client.connect(username, getHost(), getPort())
-                     .verify(defaultTimeoutSeconds, TimeUnit.SECONDS)
-                     .getSession();
-        clientSession.addPasswordIdentity(password);
-        clientSession.auth().verify(defaultTimeoutSeconds, TimeUnit.SECONDS);
-        return clientSession;
+        acquireLease();
+        try {
+            if(sessionPool != null) {
+                sessionFailed = false;
+                pooledSession = sessionPool.borrow(username, password, getHost(), getPort(), defaultTimeoutSeconds);
+                clientSession = pooledSession.getSession();
+                return clientSession;
+            }
+            clientStart();
+            clientSession = client.connect(username, getHost(), getPort())
+                         .verify(defaultTimeoutSeconds, TimeUnit.SECONDS)
+                         .getSession();
+            clientSession.addPasswordIdentity(password);
+            clientSession.auth().verify(defaultTimeoutSeconds, TimeUnit.SECONDS);
+            return clientSession;
+        } catch (IOException | RuntimeException e) {
+            releaseLease();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for a Slot on the Host (if there is a Scheduler). Throws the
+     * RejectedExecutionException if the Host stays busy beyond the Wait Budget.
+     */
+    private void acquireLease() throws IOException {
+        if(scheduler == null || lease != null) {
+            return;
+        }
+        try {
+            lease = scheduler.acquire(getHost() + ":" + getPort(), (tenant == null) ? username : tenant);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a Slot on "+getHost());
+        }
+    }
+
+    private void releaseLease() {
+        if(lease != null) {
+            lease.release();
+            lease = null;
+        }
     }
 
     /**
      * Close Client Session
+     * A Pooled Session is returned to the Pool (or dropped if it failed).
      * @throws IOException
      */
     public void closeSession() {
-        log.info("Closing the Client Session...");
-        if(clientSession != null) {
-            try {
-                clientSession.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        try {
+            if(pooledSession != null) {
+                if(sessionFailed) {
+                    sessionPool.invalidate(pooledSession);
+                } else {
+                    sessionPool.release(pooledSession);
+                }
+                pooledSession = null;
+                clientSession = null;
+                return;
             }
-            clientSession = null;
+            log.info("Closing the Client Session...");
+            if(clientSession != null) {
+                try {
+                    clientSession.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                clientSession = null;
+            }
+        } finally {
+            releaseLease();
         }
     }
 
@@ -144,7 +289,7 @@ public class SSHClient {
      * @throws IOException
      */
     public ClientChannel createChannel() throws IOException {
-        responseStream = new ByteArrayOutputStream();
+        responseStream = capturePolicy.newCapture();
         channel = getSession().createChannel(Channel.CHANNEL_SHELL);
         System.out.println("Create Client Channel");
         channel.setOut(responseStream);
@@ -153,6 +298,10 @@ public class SSHClient {
     }
 
     public void closeChannel() {
+        if(sentinelShell != null) {
+            sentinelShell.close();
+            sentinelShell = null;
+        }
         log.info("Closing the Client Channel...");
         if(channel != null) {
             try {
@@ -161,11 +310,7 @@ public class SSHClient {
                 e.printStackTrace();
             }
             channel = null;
-            try {
-                responseStream.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            responseStream.release();
             responseStream = null;
         }
     }
@@ -177,22 +322,457 @@ public class SSHClient {
      * @throws IOException
      */
     public String executeCommand(String command) throws IOException {
+        if(execMode == ExecMode.EXEC) {
+            return executeExecCommand(command);
+        }
+        if(execMode == ExecMode.SENTINEL) {
+            return executeSentinelCommand(command);
+        }
         String outputString = "";
         log.info("Setting SSH Session "+username+"@"+ getHost() +":"+ getPort() +"/");
-        ClientSession session = getSession();
-        ClientChannel channel = getChannel();
-        Date dt = new Date();
-        OutputStream sendCmdStream = channel.getInvertedIn();
-        String cmd = command + "\n";
-        sendCmdStream.write(cmd.getBytes());
-        sendCmdStream.flush();
-        channel.waitFor(EnumSet.of(ClientChannelEvent.CLOSED),
-                TimeUnit.SECONDS.toMillis(defaultTimeoutSeconds));
-        outputString = responseStream.toString();
-        resultArray.add(new CommandResults(command, outputString, dt));
+        try {
+            ClientSession session = getSession();
+            ClientChannel channel = getChannel();
+            Date dt = new Date();
+            begin(channel);
+            OutputStream sendCmdStream = channel.getInvertedIn();
+            String cmd = command + "\n";
+            sendCmdStream.write(cmd.getBytes());
+            sendCmdStream.flush();
+            await(channel, EnumSet.of(ClientChannelEvent.CLOSED), TimeUnit.SECONDS.toMillis(defaultTimeoutSeconds));
+            CommandResults cr = new CommandResults(getHost(), command, responseStream.toByteArray(), "", null, dt,
+                    responseStream.getTruncation());
+            resultArray.add(cr);
+            outputString = cr.getResult();
+        } catch (IOException e) {
+            failed(e);
+            throw e;
+        } finally {
+            if(channel != null) {
+                end(channel);
+            }
+        }
         return outputString;
     }
 
+    /**
+     * Execute the Command on an Exec Channel.
+     * Returns as soon as the Remote sends the Exit Status (or Closes the Channel)
+     * instead of waiting for the Timeout.
+     *
+     * @param command
+     * @return
+     * @throws IOException
+     */
+    public String executeExecCommand(String command) throws IOException {
+        log.info("Setting SSH Session "+username+"@"+ getHost() +":"+ getPort() +"/ (exec)");
+        OutputCapture out = capturePolicy.newCapture();
+        CappedOutputStream err = new CappedOutputStream(STREAM_MAX_ERROR);
+        ChannelExec exec = null;
+        try {
+            ClientSession session = getSession();
+            Date dt = new Date();
+            exec = session.createExecChannel(command);
+            exec.setOut(out);
+            exec.setErr(err);
+            begin(exec);
+            exec.open().verify(defaultTimeoutSeconds, TimeUnit.SECONDS);
+            // Output arrives before the Exit Status on the Channel, so it's complete here
+            Set<ClientChannelEvent> events = await(exec,
+                    EnumSet.of(ClientChannelEvent.EXIT_STATUS, ClientChannelEvent.CLOSED),
+                    TimeUnit.SECONDS.toMillis(defaultTimeoutSeconds));
+            String error = err.toString();
+            if(events.contains(ClientChannelEvent.TIMEOUT)) {
+                log.warn("Command timed out after "+defaultTimeoutSeconds+" Seconds: "+command);
+                error = error + "Timed out after "+defaultTimeoutSeconds+" Seconds";
+            }
+            CommandResults cr = new CommandResults(getHost(), command, out.toByteArray(), error,
+                    exec.getExitStatus(), dt, out.getTruncation());
+            resultArray.add(cr);
+            return cr.getResult();
+        } catch (IOException e) {
+            failed(e);
+            throw e;
+        } finally {
+            if(exec != null) {
+                end(exec);
+                // Non Blocking Close (Signal first if it's still running), the Session stays open
+                if(exec.getExitStatus() == null) {
+                    RemoteCancel.abort(exec);
+                } else {
+                    exec.close(false);
+                }
+            }
+            out.release();
+        }
+    }
+
+    /**
+     * Execute the independent Commands on many Exec Channels open at once on the one
+     * Session (See ChannelPipeline). Results are in the Submission Order.
+     *
+     * @param commands
+     * @param maxChannels Channels open at once (Capped by the Server's MaxSessions)
+     * @return
+     * @throws IOException
+     */
+    public List<CommandResults> executePipelined(List<String> commands, int maxChannels) throws IOException {
+        log.info("Setting SSH Session "+username+"@"+ getHost() +":"+ getPort() +"/ (pipelined "
+                +commands.size()+" Commands)");
+        try {
+            ClientSession session = getSession();
+            List<CommandResults> results = new ChannelPipeline(getHost(), session, defaultTimeoutSeconds,
+                    capturePolicy, maxChannels).execute(commands);
+            resultArray.addAll(results);
+            return results;
+        } catch (InterruptedIOException e) {
+            // Channels are closed, the Session is fine
+            throw e;
+        } catch (IOException e) {
+            // Don't return a broken Session to the Pool
+            sessionFailed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Execute the Commands as one Script on one Exec Channel (See ScriptBundle).
+     * Results are in the Submission Order with the Time per Command.
+     *
+     * @param commands
+     * @return
+     * @throws IOException
+     */
+    public List<CommandResults> executeBundled(List<String> commands) throws IOException {
+        log.info("Setting SSH Session "+username+"@"+ getHost() +":"+ getPort() +"/ (bundled "
+                +commands.size()+" Commands)");
+        try {
+            ClientSession session = getSession();
+            List<CommandResults> results = new ScriptBundle(getHost(), session, defaultTimeoutSeconds,
+                    capturePolicy).execute(commands);
+            resultArray.addAll(results);
+            return results;
+        } catch (InterruptedIOException e) {
+            // Channel is closed, the Session is fine
+            throw e;
+        } catch (IOException e) {
+            // Don't return a broken Session to the Pool
+            sessionFailed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Execute the Command on an Exec Channel and forward the Output to the Sink as it
+     * arrives. The Output is read from the Channel's Piped Stream, which adjusts the
+     * SSH Window only when the Bytes are read. So a slow Sink slows down the Remote,
+     * and the Memory per Command stays within the SSH Window + the Read Buffer.
+     * The Timeout applies to the Silence between the Chunks (not the whole Command).
+     *
+     * @param command
+     * @param sink
+     * @return Command Results (without the Output) with the Std Error and Exit Code
+     * @throws IOException
+     */
+    public CommandResults streamExecCommand(String command, OutputStream sink) throws IOException {
+        return streamExecCommand(command, sink, null);
+    }
+
+    /**
+     * Execute the Command on an Exec Channel and forward the Output to the Sink as it
+     * arrives. The Capture (Head + Tail) keeps a bounded copy of the Output for the
+     * Command Results.
+     *
+     * @param command
+     * @param sink
+     * @param capture (null = Results without the Output)
+     * @return Command Results with the Captured Output, Std Error and Exit Code
+     * @throws IOException
+     */
+    public CommandResults streamExecCommand(String command, OutputStream sink, OutputCapture capture)
+            throws IOException {
+        return streamExecCommand(command, sink, capture, 0);
+    }
+
+    /**
+     * Execute the Command on an Exec Channel and forward the Output to the Sink as it
+     * arrives. Besides the Timeout for the Silence between the Chunks, the Command is
+     * stopped when it runs longer than the Max Time (Ex. Async Jobs).
+     *
+     * @param command
+     * @param sink
+     * @param capture (null = Results without the Output)
+     * @param maxMillis Max Time for the whole Command (0 = No Limit)
+     * @return Command Results with the Captured Output, Std Error and Exit Code
+     * @throws IOException
+     */
+    public CommandResults streamExecCommand(String command, OutputStream sink, OutputCapture capture,
+                                            long maxMillis) throws IOException {
+        log.info("Setting SSH Session "+username+"@"+ getHost() +":"+ getPort() +"/ (stream)");
+        CappedOutputStream err = new CappedOutputStream(STREAM_MAX_ERROR);
+        ChannelExec exec = null;
+        boolean sinkFailed = false;
+        try {
+            ClientSession session = getSession();
+            Date dt = new Date();
+            exec = session.createExecChannel(command);
+            exec.setErr(err);
+            begin(exec);
+            exec.open().verify(defaultTimeoutSeconds, TimeUnit.SECONDS);
+            InputStream out = exec.getInvertedOut();
+            long idleMillis = TimeUnit.SECONDS.toMillis(defaultTimeoutSeconds);
+            long deadline = (maxMillis > 0) ? dt.getTime() + maxMillis : 0;
+            if(out instanceof ChannelPipedInputStream) {
+                ((ChannelPipedInputStream) out).setTimeout(idleMillis);
+            }
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            String error = "";
+            long bytes = 0;
+            while(true) {
+                int read;
+                long remaining = (deadline > 0) ? deadline - System.currentTimeMillis() : idleMillis;
+                if(remaining <= 0) {
+                    log.warn("Command exceeded the Max Time of "+maxMillis+" ms: "+command);
+                    error = "Command exceeded the Max Time of "+maxMillis+" ms";
+                    break;
+                }
+                long timeout = Math.min(idleMillis, remaining);
+                if(deadline > 0 && out instanceof ChannelPipedInputStream) {
+                    ((ChannelPipedInputStream) out).setTimeout(timeout);
+                }
+                long readStart = System.currentTimeMillis();
+                try {
+                    read = out.read(buffer);
+                } catch (SocketException | SocketTimeoutException e) {
+                    // SSHD's Piped Stream signals the Timeout with a SocketException
+                    if(System.currentTimeMillis() - readStart < timeout) {
+                        throw e;
+                    }
+                    if(deadline > 0 && System.currentTimeMillis() >= deadline) {
+                        continue;
+                    }
+                    log.warn("Command Output idle for "+defaultTimeoutSeconds+" Seconds: "+command);
+                    error = "No Output for "+defaultTimeoutSeconds+" Seconds";
+                    break;
+                }
+                if(read == -1) {
+                    break;
+                }
+                try {
+                    sink.write(buffer, 0, read);
+                    sink.flush();
+                } catch (IOException e) {
+                    // The Sink (Ex. HTTP Client) went away, the SSH Session is fine
+                    sinkFailed = true;
+                    throw e;
+                }
+                if(capture != null) {
+                    capture.write(buffer, 0, read);
+                }
+                bytes += read;
+            }
+            // Cancel closes the Channel = End of the Output
+            checkCancelled();
+            if(error.isEmpty()) {
+                // End of the Output - the Exit Status follows (Timed out = still running)
+                await(exec, EnumSet.of(ClientChannelEvent.EXIT_STATUS, ClientChannelEvent.CLOSED),
+                        TimeUnit.SECONDS.toMillis(1));
+            }
+            log.info("Streamed "+bytes+" Bytes from "+getHost()+" Exit Status = "+exec.getExitStatus());
+            CommandResults results = (capture == null)
+                    ? new CommandResults(getHost(), command, "", err.toString() + error, exec.getExitStatus(), dt)
+                    : new CommandResults(getHost(), command, capture.toByteArray(), err.toString() + error,
+                            exec.getExitStatus(), dt, capture.getTruncation());
+            resultArray.add(results);
+            return results;
+        } catch (IOException e) {
+            if(!sinkFailed) {
+                failed(e);
+            }
+            throw e;
+        } finally {
+            if(exec != null) {
+                end(exec);
+                // Stop the Remote Command if it's still running (Ex. the HTTP Client went away)
+                if(exec.getExitStatus() == null) {
+                    RemoteCancel.abort(exec);
+                } else {
+                    exec.close(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Execute the Command on a Persistent Shell Channel.
+     * Completes on the End Marker in the Output. With the Session Pool, the Shell
+     * stays open with the Pooled Session for the next Command.
+     *
+     * @param command
+     * @return
+     * @throws IOException
+     */
+    public String executeSentinelCommand(String command) throws IOException {
+        log.info("Setting SSH Session "+username+"@"+ getHost() +":"+ getPort() +"/ (sentinel)");
+        try {
+            ClientSession session = getSession();
+            SentinelShell shell;
+            if(pooledSession != null) {
+                shell = pooledSession.getShell(defaultTimeoutSeconds, capturePolicy);
+            } else {
+                if(sentinelShell == null || !sentinelShell.isOpen()) {
+                    if(sentinelShell != null) {
+                        // Frees the Channel and the Capture Buffers of the broken Shell
+                        sentinelShell.close();
+                    }
+                    sentinelShell = new SentinelShell(getHost(), session, defaultTimeoutSeconds, capturePolicy);
+                }
+                shell = sentinelShell;
+            }
+            activeShell = shell;
+            if(cancelled) {
+                shell.cancel();
+            }
+            CommandResults cr = shell.execute(command, defaultTimeoutSeconds);
+            resultArray.add(cr);
+            return cr.getResult();
+        } catch (IOException e) {
+            failed(e);
+            throw e;
+        } finally {
+            activeShell = null;
+        }
+    }
+
+    /**
+     * Cancel the running Command (from any Thread) - The Remote Command is signalled
+     * and its Channel closed at once. The waiting Thread gets an InterruptedIOException
+     * and the Session goes back to the Pool. Commands after this fail at the Start.
+     */
+    public void cancel() {
+        cancelled = true;
+        for(ClientChannel active : activeChannels) {
+            RemoteCancel.abort(active);
+        }
+        SentinelShell shell = activeShell;
+        if(shell != null) {
+            shell.cancel();
+        }
+    }
+
+    /**
+     * Returns True if the Client is Cancelled
+     * @return
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Track the Channel of the running Command (Aborted if already Cancelled)
+     */
+    private void begin(ClientChannel _channel) throws InterruptedIOException {
+        activeChannels.add(_channel);
+        if(cancelled) {
+            RemoteCancel.abort(_channel);
+            throw new InterruptedIOException("Command Cancelled");
+        }
+    }
+
+    private void end(ClientChannel _channel) {
+        activeChannels.remove(_channel);
+    }
+
+    /**
+     * Wait for the Channel Events in short Slices, checking the Cancel in between
+     * (SSHD's waitFor doesn't wake up on the Thread Interrupt).
+     */
+    private Set<ClientChannelEvent> await(ClientChannel _channel, Set<ClientChannelEvent> _events,
+                                          long _timeoutMillis) throws InterruptedIOException {
+        long deadline = System.currentTimeMillis() + _timeoutMillis;
+        while(true) {
+            checkCancelled();
+            long wait = Math.min(CANCEL_POLL_MILLIS, deadline - System.currentTimeMillis());
+            Set<ClientChannelEvent> events = _channel.waitFor(_events, Math.max(1, wait));
+            if(!events.contains(ClientChannelEvent.TIMEOUT) || System.currentTimeMillis() >= deadline) {
+                checkCancelled();
+                return events;
+            }
+        }
+    }
+
+    /**
+     * Throws if the Client is Cancelled or the Thread is Interrupted
+     */
+    private void checkCancelled() throws InterruptedIOException {
+        if(cancelled) {
+            throw new InterruptedIOException("Command Cancelled");
+        }
+        if(Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Command Interrupted");
+        }
+    }
+
+    /**
+     * Don't return a broken Session to the Pool (A Cancelled / Interrupted Command
+     * leaves the Session fine)
+     */
+    private void failed(IOException _e) {
+        boolean interrupted = _e instanceof InterruptedIOException && !(_e instanceof SocketTimeoutException);
+        if(!cancelled && !interrupted) {
+            sessionFailed = true;
+        }
+    }
+
+    /**
+     * Set the Execution Mode (Default SHELL)
+     * @param _execMode
+     */
+    public void setExecMode(ExecMode _execMode) {
+        execMode = (_execMode == null) ? ExecMode.SHELL : _execMode;
+    }
+
+    /**
+     * Returns the Execution Mode
+     * @return
+     */
+    public ExecMode getExecMode() {
+        return execMode;
+    }
+
+    /**
+     * Set the Capture Policy (Head + Tail of the Output kept per Command)
+     * @param _capturePolicy
+     */
+    public void setCapturePolicy(CapturePolicy _capturePolicy) {
+        capturePolicy = (_capturePolicy == null) ? CapturePolicy.DEFAULT : _capturePolicy;
+    }
+
+    /**
+     * Returns the Capture Policy
+     * @return
+     */
+    public CapturePolicy getCapturePolicy() {
+        return capturePolicy;
+    }
+
+    /**
+     * Set the Host Scheduler (Per Host Admission before the Session is opened)
+     * @param _scheduler
+     */
+    public void setScheduler(HostScheduler _scheduler) {
+        scheduler = _scheduler;
+    }
+
+    /**
+     * Set the Tenant (Caller) - Waiters of a Host get the Slots Round Robin across the
+     * Tenants (null = the SSH User, shared by all the Callers of the Target)
+     * @param _tenant
+     */
+    public void setTenant(String _tenant) {
+        tenant = _tenant;
+    }
+
     /**
      * For Testing ONLY
      * @param args
@@ -203,6 +783,7 @@ public class SSHClient {
         // testSSHClient1();
         testSSHClient2();
         // testSSHClient3();
+        // testSSHEngineBenchmark(20);
     }
 
     public static void testSSHClient1() throws IOException {
@@ -243,6 +824,66 @@ public class SSHClient {
             x++;
         }
     }
+    /**
+     * Throughput Benchmark - SshClient per Call (Before) vs Shared SSH Engine (After)
+     * Runs the same command N times with each setup and prints the Ops / Sec.
+     *
+     * @param iterations
+     * @throws IOException
+     */
+    public static void testSSHEngineBenchmark(int iterations) throws IOException {
+        String command = "pwd";
+        // Warm up the JIT and the Remote Server
+        new SSHClient("demo", "password", "test.rebex.net", 22, 10).runOnce(command);
+
+        long start = System.nanoTime();
+        for(int x=0; x < iterations; x++) {
+            new SSHClient("demo", "password", "test.rebex.net", 22, 10).runOnce(command);
+        }
+        long perCall = System.nanoTime() - start;
+
+        SSHEngine engine = new SSHEngine();
+        engine.start();
+        start = System.nanoTime();
+        try {
+            for (int x = 0; x < iterations; x++) {
+                new SSHClient(engine, "demo", "password", "test.rebex.net", 22, 10).runOnce(command);
+            }
+        } finally {
+            engine.stop();
+        }
+        long shared = System.nanoTime() - start;
+
+        System.out.println("==SSH Engine Benchmark (" + iterations + " x " + command + ")============================");
+        System.out.println("SshClient per Call : " + opsPerSecond(iterations, perCall) + " ops/sec");
+        System.out.println("Shared SSH Engine  : " + opsPerSecond(iterations, shared) + " ops/sec");
+        System.out.println("=================================================================");
+    }
+
+    /**
+     * Start, Execute the Command and Stop
+     * @param command
+     * @throws IOException
+     */
+    private void runOnce(String command) throws IOException {
+        clientStart();
+        try {
+            executeCommand(command);
+        } finally {
+            clientStop();
+        }
+    }
+
+    /**
+     * Returns the Ops / Sec
+     * @param ops
+     * @param nanos
+     * @return
+     */
+    private static String opsPerSecond(int ops, long nanos) {
+        return String.format("%.2f", ops / (nanos / 1_000_000_000.0));
+    }
+
     /**
      * Test the SSH Client
      * @throws IOException
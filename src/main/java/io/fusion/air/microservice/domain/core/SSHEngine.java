@@ -0,0 +1,121 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.slf4j.Logger;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * SSH Engine - Owns the Apache SSHD SshClient (NIO2 Reactor + IO Worker Pool)
+ * for the life of the Service. SSHClient objects borrow the running client
+ * from the Engine instead of setting up (and tearing down) a new one per call.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class SSHEngine {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final int nioWorkers;
+    private final long windowBytes;
+
+    private volatile SshClient client;
+
+    /**
+     * Create the SSH Engine with the SSHD Default IO Workers
+     */
+    public SSHEngine() {
+        this(0);
+    }
+
+    /**
+     * Create the SSH Engine
+     *
+     * @param _nioWorkers IO Workers for the NIO2 Reactor (0 = SSHD Default)
+     */
+    public SSHEngine(int _nioWorkers) {
+        this(_nioWorkers, 0);
+    }
+
+    /**
+     * Create the SSH Engine
+     *
+     * @param _nioWorkers IO Workers for the NIO2 Reactor (0 = SSHD Default)
+     * @param _windowBytes Channel Window (0 = SSHD Default). Upper limit for the
+     *                     Output buffered per Channel when the Reader is slow.
+     */
+    public SSHEngine(int _nioWorkers, long _windowBytes) {
+        nioWorkers  = _nioWorkers;
+        windowBytes = _windowBytes;
+    }
+
+    /**
+     * Start the Engine (Idempotent)
+     * @return
+     */
+    public synchronized SshClient start() {
+        if(client == null || !client.isStarted()) {
+            log.info("Starting SSH Engine... NIO Workers = "+((nioWorkers > 0) ? nioWorkers : "default"));
+            SshClient sshClient = SshClient.setUpDefaultClient();
+            if(nioWorkers > 0) {
+                CoreModuleProperties.NIO_WORKERS.set(sshClient, nioWorkers);
+            }
+            if(windowBytes > 0) {
+                CoreModuleProperties.WINDOW_SIZE.set(sshClient, windowBytes);
+            }
+            sshClient.start();
+            client = sshClient;
+        }
+        return client;
+    }
+
+    /**
+     * Stop the Engine
+     */
+    public synchronized void stop() {
+        if(client != null) {
+            log.info("Stopping SSH Engine...");
+            client.stop();
+            client = null;
+        }
+    }
+
+    /**
+     * Returns the Running SshClient (Starts the Engine if required)
+     * @return
+     */
+    public SshClient getClient() {
+        SshClient sshClient = client;
+        return (sshClient != null && sshClient.isStarted()) ? sshClient : start();
+    }
+
+    /**
+     * Returns True if the Engine is Running
+     * @return
+     */
+    public boolean isRunning() {
+        SshClient sshClient = client;
+        return sshClient != null && sshClient.isStarted();
+    }
+
+    /**
+     * Returns the IO Workers (0 = SSHD Default)
+     * @return
+     */
+    public int getNioWorkers() {
+        return nioWorkers;
+    }
+
+    /**
+     * Returns the Channel Window in Bytes (0 = SSHD Default)
+     * @return
+     */
+    public long getWindowBytes() {
+        return windowBytes;
+    }
+}
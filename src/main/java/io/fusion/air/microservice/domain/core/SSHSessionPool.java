@@ -0,0 +1,514 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * SSH Session Pool - Authenticated ClientSessions keyed by (user, host, port, credential)
+ *
+ * - Max Sessions per Key and Max Sessions in Total
+ * - Idle Time and Max Lifetime Eviction
+ * - Validation on Borrow
+ * - Background Keep Alive for the Idle Sessions
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class SSHSessionPool {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final SSHEngine engine;
+    private final int maxPerKey;
+    private final int maxTotal;
+    private final long idleTimeMillis;
+    private final long maxLifetimeMillis;
+    private final long keepAliveMillis;
+
+    private final ConcurrentHashMap<Key, Deque<PooledSession>> idleSessions;
+    private final ConcurrentHashMap<Key, KeyPermit> keyPermits;
+    private final Semaphore totalPermits;
+    private final AtomicInteger openSessions;
+
+    // Pool Stats
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictedIdle;
+    private final AtomicLong evictedLifetime;
+    private final AtomicLong validationFailures;
+    private final AtomicLong keepAliveFailures;
+
+    private final ScheduledExecutorService maintenance;
+
+    /**
+     * Create the SSH Session Pool
+     *
+     * @param _engine
+     * @param _maxPerKey
+     * @param _maxTotal
+     * @param _idleTimeSeconds
+     * @param _maxLifetimeSeconds
+     * @param _keepAliveSeconds
+     */
+    public SSHSessionPool(SSHEngine _engine, int _maxPerKey, int _maxTotal,
+                          long _idleTimeSeconds, long _maxLifetimeSeconds, long _keepAliveSeconds) {
+        engine              = _engine;
+        maxPerKey           = _maxPerKey;
+        maxTotal            = _maxTotal;
+        idleTimeMillis      = TimeUnit.SECONDS.toMillis(_idleTimeSeconds);
+        maxLifetimeMillis   = TimeUnit.SECONDS.toMillis(_maxLifetimeSeconds);
+        keepAliveMillis     = TimeUnit.SECONDS.toMillis(_keepAliveSeconds);
+
+        idleSessions        = new ConcurrentHashMap<Key, Deque<PooledSession>>();
+        keyPermits          = new ConcurrentHashMap<Key, KeyPermit>();
+        totalPermits        = new Semaphore(_maxTotal, true);
+        openSessions        = new AtomicInteger();
+
+        hits                = new AtomicLong();
+        misses              = new AtomicLong();
+        evictedIdle         = new AtomicLong();
+        evictedLifetime     = new AtomicLong();
+        validationFailures  = new AtomicLong();
+        keepAliveFailures   = new AtomicLong();
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ssh-session-pool");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(keepAliveMillis, idleTimeMillis));
+        maintenance.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow an Authenticated Session. Reuses an Idle Session (Hit) if a valid one
+     * is available for the Key, else Connects and Authenticates a new one (Miss).
+     *
+     * @param _username
+     * @param _password
+     * @param _host
+     * @param _port
+     * @param _timeoutSeconds
+     * @return
+     * @throws IOException
+     */
+    public PooledSession borrow(String _username, String _password, String _host, int _port,
+                                long _timeoutSeconds) throws IOException {
+        Key key = new Key(_username, _host, _port, fingerprint(_password));
+        Semaphore keyPermit = retainKeyPermit(key);
+        try {
+            acquire(keyPermit, _timeoutSeconds, "Max Sessions for "+key);
+        } catch (IOException e) {
+            releaseKeyPermit(key);
+            throw e;
+        }
+        try {
+            acquire(totalPermits, _timeoutSeconds, "Max Sessions in Pool");
+        } catch (IOException e) {
+            keyPermit.release();
+            releaseKeyPermit(key);
+            throw e;
+        }
+        try {
+            PooledSession pooled = pollValid(key);
+            if(pooled != null) {
+                hits.incrementAndGet();
+                return pooled;
+            }
+            misses.incrementAndGet();
+            if(openSessions.get() >= maxTotal) {
+                evictOldestIdle();
+            }
+            return connect(key, _password, _timeoutSeconds);
+        } catch (IOException | RuntimeException e) {
+            releasePermits(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Return the Session to the Pool
+     * @param _pooled
+     */
+    public void release(PooledSession _pooled) {
+        if(_pooled == null) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if(!isValid(_pooled, now) || openSessions.get() > maxTotal) {
+                destroy(_pooled);
+            } else {
+                _pooled.touch(now);
+                // Atomic with the Removal of an empty Deque (See maintain)
+                idleSessions.compute(_pooled.getKey(), (k, sessions) -> {
+                    Deque<PooledSession> deque = (sessions == null)
+                            ? new ConcurrentLinkedDeque<PooledSession>() : sessions;
+                    deque.offerFirst(_pooled);
+                    return deque;
+                });
+            }
+        } finally {
+            releasePermits(_pooled.getKey());
+        }
+    }
+
+    /**
+     * Close the Session and Remove it from the Pool (Ex. after an IO Error)
+     * @param _pooled
+     */
+    public void invalidate(PooledSession _pooled) {
+        if(_pooled == null) {
+            return;
+        }
+        try {
+            destroy(_pooled);
+        } finally {
+            releasePermits(_pooled.getKey());
+        }
+    }
+
+    /**
+     * Returns the Pool Stats
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        long hit = hits.get();
+        long miss = misses.get();
+        int idle = 0;
+        for(Deque<PooledSession> sessions : idleSessions.values()) {
+            idle += sessions.size();
+        }
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("hits", hit);
+        stats.put("misses", miss);
+        stats.put("hitRatio", (hit + miss) == 0 ? 0.0 : (double) hit / (hit + miss));
+        stats.put("openSessions", openSessions.get());
+        stats.put("idleSessions", idle);
+        stats.put("leasedSessions", maxTotal - totalPermits.availablePermits());
+        stats.put("evictedIdle", evictedIdle.get());
+        stats.put("evictedLifetime", evictedLifetime.get());
+        stats.put("validationFailures", validationFailures.get());
+        stats.put("keepAliveFailures", keepAliveFailures.get());
+        stats.put("maxPerKey", maxPerKey);
+        stats.put("maxTotal", maxTotal);
+        return stats;
+    }
+
+    /**
+     * Close all the Idle Sessions and Stop the Maintenance Thread
+     */
+    public void close() {
+        maintenance.shutdownNow();
+        for(Deque<PooledSession> sessions : idleSessions.values()) {
+            PooledSession pooled;
+            while((pooled = sessions.pollFirst()) != null) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    /**
+     * Returns the SSH Engine
+     * @return
+     */
+    public SSHEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Poll an Idle Session for the Key. Invalid Sessions are closed on the way.
+     * @param _key
+     * @return
+     */
+    private PooledSession pollValid(Key _key) {
+        Deque<PooledSession> sessions = idleSessions.get(_key);
+        if(sessions == null) {
+            return null;
+        }
+        PooledSession pooled;
+        long now = System.currentTimeMillis();
+        while((pooled = sessions.pollFirst()) != null) {
+            if(isValid(pooled, now)) {
+                pooled.touch(now);
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    /**
+     * Connect and Authenticate a new Session
+     * @param _key
+     * @param _password
+     * @param _timeoutSeconds
+     * @return
+     * @throws IOException
+     */
+    private PooledSession connect(Key _key, String _password, long _timeoutSeconds) throws IOException {
+        log.info("Session Pool Miss, Connecting to "+_key);
+        ClientSession session = engine.getClient().connect(_key.getUsername(), _key.getHost(), _key.getPort())
+                .verify(_timeoutSeconds, TimeUnit.SECONDS)
+                .getSession();
+        try {
+            session.addPasswordIdentity(_password);
+            session.auth().verify(_timeoutSeconds, TimeUnit.SECONDS);
+        } catch (IOException | RuntimeException e) {
+            session.close(true);
+            throw e;
+        }
+        openSessions.incrementAndGet();
+        return new PooledSession(_key, session);
+    }
+
+    /**
+     * Returns True if the Session is Open, Authenticated and within its Lifetime
+     * @param _pooled
+     * @param _now
+     * @return
+     */
+    private boolean isValid(PooledSession _pooled, long _now) {
+        ClientSession session = _pooled.getSession();
+        return session.isOpen()
+                && session.isAuthenticated()
+                && (_now - _pooled.getCreatedTime()) < maxLifetimeMillis;
+    }
+
+    /**
+     * Evict the Idle and Expired Sessions and send Keep Alive to the rest
+     */
+    private void maintain() {
+        try {
+            long now = System.currentTimeMillis();
+            for(Key key : idleSessions.keySet()) {
+                // Drop the Keys whose last Session was evicted
+                idleSessions.computeIfPresent(key, (k, sessions) -> sessions.isEmpty() ? null : sessions);
+            }
+            for(Deque<PooledSession> sessions : idleSessions.values()) {
+                Iterator<PooledSession> iterator = sessions.descendingIterator();
+                while(iterator.hasNext()) {
+                    PooledSession pooled = iterator.next();
+                    if((now - pooled.getCreatedTime()) >= maxLifetimeMillis) {
+                        if(sessions.remove(pooled)) {
+                            evictedLifetime.incrementAndGet();
+                            destroy(pooled);
+                        }
+                    } else if((now - pooled.getLastUsedTime()) >= idleTimeMillis) {
+                        if(sessions.remove(pooled)) {
+                            evictedIdle.incrementAndGet();
+                            destroy(pooled);
+                        }
+                    } else if((now - pooled.getLastKeepAliveTime()) >= keepAliveMillis) {
+                        keepAlive(sessions, pooled, now);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Session Pool Maintenance Failed: "+e.getMessage());
+        }
+    }
+
+    /**
+     * Close the Least Recently Used Idle Session (of any Key) to make room for a new one
+     */
+    private void evictOldestIdle() {
+        Deque<PooledSession> oldestDeque = null;
+        PooledSession oldest = null;
+        for(Deque<PooledSession> sessions : idleSessions.values()) {
+            PooledSession last = sessions.peekLast();
+            if(last != null && (oldest == null || last.getLastUsedTime() < oldest.getLastUsedTime())) {
+                oldest = last;
+                oldestDeque = sessions;
+            }
+        }
+        if(oldest != null && oldestDeque.remove(oldest)) {
+            evictedIdle.incrementAndGet();
+            destroy(oldest);
+        }
+    }
+
+    /**
+     * Send an SSH_MSG_IGNORE on the Idle Session to keep it (and the NAT / Firewalls) alive
+     * @param _sessions
+     * @param _pooled
+     * @param _now
+     */
+    private void keepAlive(Deque<PooledSession> _sessions, PooledSession _pooled, long _now) {
+        try {
+            _pooled.getSession().sendIgnoreMessage();
+            _pooled.keepAlive(_now);
+        } catch (IOException | RuntimeException e) {
+            keepAliveFailures.incrementAndGet();
+            if(_sessions.remove(_pooled)) {
+                destroy(_pooled);
+            }
+        }
+    }
+
+    /**
+     * Close the Session
+     * @param _pooled
+     */
+    private void destroy(PooledSession _pooled) {
+        openSessions.decrementAndGet();
+        _pooled.close();
+    }
+
+    /**
+     * Release the Key and Total Permits
+     * @param _key
+     */
+    private void releasePermits(Key _key) {
+        totalPermits.release();
+        KeyPermit keyPermit = keyPermits.get(_key);
+        if(keyPermit != null) {
+            keyPermit.permits.release();
+        }
+        releaseKeyPermit(_key);
+    }
+
+    /**
+     * Returns the Permits of the Key, counting the Borrower (till releaseKeyPermit)
+     * @param _key
+     * @return
+     */
+    private Semaphore retainKeyPermit(Key _key) {
+        return keyPermits.compute(_key, (k, keyPermit) -> {
+            KeyPermit permit = (keyPermit == null) ? new KeyPermit(maxPerKey) : keyPermit;
+            permit.borrowers++;
+            return permit;
+        }).permits;
+    }
+
+    /**
+     * The Borrower is done with the Key. The Entry is removed with the last Borrower
+     * (No Permit is taken then), so the Map doesn't grow with every Key ever used.
+     * @param _key
+     */
+    private void releaseKeyPermit(Key _key) {
+        keyPermits.computeIfPresent(_key, (k, keyPermit) -> (--keyPermit.borrowers == 0) ? null : keyPermit);
+    }
+
+    /**
+     * Acquire the Permit within the Timeout
+     * @param _permit
+     * @param _timeoutSeconds
+     * @param _limit
+     * @throws IOException
+     */
+    private static void acquire(Semaphore _permit, long _timeoutSeconds, String _limit) throws IOException {
+        try {
+            if(!_permit.tryAcquire(_timeoutSeconds, TimeUnit.SECONDS)) {
+                throw new IOException("Session Pool Exhausted: "+_limit);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the Session Pool", e);
+        }
+    }
+
+    /**
+     * Returns the SHA-256 Fingerprint of the Credential (The Key never holds the Password)
+     * @param _credential
+     * @return
+     */
+    private static String fingerprint(String _credential) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(_credential).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for(byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Permits of a Key and the Borrowers using them (Guarded by the Map's compute)
+     */
+    private static final class KeyPermit {
+        private final Semaphore permits;
+        private int borrowers;
+
+        private KeyPermit(int _maxPerKey) {
+            permits = new Semaphore(_maxPerKey, true);
+        }
+    }
+
+    /**
+     * Pool Key (user, host, port, credential)
+     */
+    public static final class Key {
+
+        private final String username;
+        private final String host;
+        private final int port;
+        private final String credential;
+
+        private Key(String _username, String _host, int _port, String _credential) {
+            username    = _username;
+            host        = _host;
+            port        = _port;
+            credential  = _credential;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return port == key.port && username.equals(key.username)
+                    && host.equals(key.host) && credential.equals(key.credential);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, host, port, credential);
+        }
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port;
+        }
+    }
+}
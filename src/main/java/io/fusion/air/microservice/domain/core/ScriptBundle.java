@@ -0,0 +1,298 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.channel.ChannelExec;
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Script Bundle - Runs a Batch as one generated Shell Script on one Exec Channel.
+ * The Script is sent on the Std In of the Remote Shell (No Command Line Limit), each
+ * Command runs in its own Sub Shell (Std In = /dev/null) and is framed by Markers with
+ * a random Token on the Std Out and the Std Err:
+ *
+ *   printf '\n{token} 0 B\n' ; printf '\n{token} 0 B\n' >&2
+ *   ( uptime
+ *   ) </dev/null
+ *   __rc=$? ; printf '\n{token} 0 E %d\n' "$__rc" ; printf '\n{token} 0 E\n' >&2
+ *
+ * The Marker Demultiplexers split the Streams back into the Results per Command, the
+ * Time per Command is from its Start Marker to its End Marker. The whole Batch costs
+ * one Channel Open (vs one per Command).
+ *
+ * The Timeout is per Command. A Command that times out stops the Bundle (the Channel
+ * is closed) and the rest are returned as not run.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class ScriptBundle {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final int MAX_ERROR = 64 * 1024;
+    // Remote Shell reading the Script from the Std In
+    private static final String SHELL = "/bin/sh -s";
+
+    private final String host;
+    private final ClientSession session;
+    private final long timeoutSeconds;
+    private final CapturePolicy capturePolicy;
+
+    // Per Command State (Guarded by this)
+    private List<String> commands;
+    private OutputCapture[] outs;
+    private CappedOutputStream[] errs;
+    private Date[] startTimes;
+    private Integer[] exitCodes;
+    private boolean[] outEnded;
+    private boolean[] errEnded;
+    private CommandResults[] results;
+    private int completed;
+    // Command between its Start and End Marker on the Std Out (-1 = None)
+    private int running;
+    private long lastMarker;
+    private boolean closed;
+
+    /**
+     * Create the Script Bundle
+     *
+     * @param _host
+     * @param _session Authenticated Session
+     * @param _timeoutSeconds Per Command Timeout
+     * @param _policy Output Capture (Head + Tail) per Command
+     */
+    public ScriptBundle(String _host, ClientSession _session, long _timeoutSeconds, CapturePolicy _policy) {
+        host            = _host;
+        session         = _session;
+        timeoutSeconds  = _timeoutSeconds;
+        capturePolicy   = _policy;
+    }
+
+    /**
+     * Returns the Script for the Commands
+     *
+     * @param _token Unique Token of the Markers
+     * @param _commands
+     * @return
+     */
+    public static String script(String _token, List<String> _commands) {
+        StringBuilder sb = new StringBuilder();
+        for(int x = 0; x < _commands.size(); x++) {
+            sb.append("printf '\\n").append(_token).append(' ').append(x).append(" B\\n' ; ");
+            sb.append("printf '\\n").append(_token).append(' ').append(x).append(" B\\n' >&2\n");
+            // New Line before the Parenthesis - A Comment at the End doesn't swallow it
+            sb.append("( ").append(_commands.get(x)).append("\n) </dev/null\n");
+            sb.append("__rc=$? ; printf '\\n").append(_token).append(' ').append(x).append(" E %d\\n' \"$__rc\" ; ");
+            sb.append("printf '\\n").append(_token).append(' ').append(x).append(" E\\n' >&2\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Execute the Commands as one Script. A Command that didn't finish (Timeout, the
+     * Script stopped) is returned with the Error and no Exit Code.
+     *
+     * @param _commands
+     * @return Results in the Submission Order
+     * @throws IOException if the Channel can't be opened
+     */
+    public List<CommandResults> execute(List<String> _commands) throws IOException {
+        int size = _commands.size();
+        synchronized (this) {
+            commands    = _commands;
+            outs        = new OutputCapture[size];
+            errs        = new CappedOutputStream[size];
+            startTimes  = new Date[size];
+            exitCodes   = new Integer[size];
+            outEnded    = new boolean[size];
+            errEnded    = new boolean[size];
+            results     = new CommandResults[size];
+            completed   = 0;
+            running     = -1;
+            closed      = false;
+            lastMarker  = System.currentTimeMillis();
+        }
+        String token = "__SSHB_" + UUID.randomUUID().toString().replace("-", "");
+        MarkerDemultiplexer stdOut = new MarkerDemultiplexer(token, this::outOf,
+                (index, end, exitCode) -> onMarker(index, end, exitCode, true));
+        MarkerDemultiplexer stdErr = new MarkerDemultiplexer(token, this::errOf,
+                (index, end, exitCode) -> onMarker(index, end, exitCode, false));
+        ChannelExec exec = null;
+        try {
+            exec = createExecChannel(SHELL);
+            exec.setOut(stdOut);
+            exec.setErr(stdErr);
+            exec.addCloseFutureListener(future -> onClose());
+            exec.open().verify(timeoutSeconds, TimeUnit.SECONDS);
+            // Std In EOF ends the Shell after the last Command
+            OutputStream in = exec.getInvertedIn();
+            in.write(script(token, _commands).getBytes(StandardCharsets.UTF_8));
+            in.flush();
+            in.close();
+            awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Script Bundle Interrupted");
+        } finally {
+            if(exec != null) {
+                // Timed out / Interrupted - Stop the Script (Signal + Graceful Close)
+                if(exec.getExitStatus() == null) {
+                    RemoteCancel.abort(exec);
+                } else {
+                    exec.close(false);
+                }
+            }
+            finish();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Wait till all the Commands completed, the Channel closed or the Running Command
+     * timed out (No Marker within the Timeout).
+     */
+    private synchronized void awaitCompletion() throws InterruptedException {
+        long timeout = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        while(completed < commands.size() && !closed) {
+            long wait = lastMarker + timeout - System.currentTimeMillis();
+            if(wait <= 0) {
+                String command = (running < 0) ? "(Script)" : commands.get(running);
+                log.warn("Command timed out after "+timeoutSeconds+" Seconds: "+command);
+                if(running >= 0 && results[running] == null) {
+                    complete(running, "Timed out after "+timeoutSeconds+" Seconds");
+                }
+                return;
+            }
+            wait(wait);
+        }
+    }
+
+    private synchronized OutputStream outOf(int _index) {
+        if(closed || !valid(_index)) {
+            return null;
+        }
+        if(outs[_index] == null) {
+            outs[_index] = capturePolicy.newCapture();
+        }
+        return outs[_index];
+    }
+
+    private synchronized OutputStream errOf(int _index) {
+        if(closed || !valid(_index)) {
+            return null;
+        }
+        if(errs[_index] == null) {
+            errs[_index] = new CappedOutputStream(MAX_ERROR);
+        }
+        return errs[_index];
+    }
+
+    /**
+     * Marker from the Std Out (Exit Code on the End) or the Std Err. The Command is
+     * complete when both the Streams reached its End Marker.
+     */
+    private synchronized void onMarker(int _index, boolean _end, Integer _exitCode, boolean _stdOut) {
+        if(!valid(_index) || results[_index] != null) {
+            return;
+        }
+        if(_stdOut) {
+            lastMarker = System.currentTimeMillis();
+            if(!_end) {
+                startTimes[_index] = new Date(lastMarker);
+                running = _index;
+            } else {
+                running = -1;
+                exitCodes[_index] = _exitCode;
+                outEnded[_index] = true;
+            }
+        } else if(_end) {
+            errEnded[_index] = true;
+        }
+        if(outEnded[_index] && errEnded[_index]) {
+            complete(_index, "");
+        }
+        notifyAll();
+    }
+
+    private synchronized void onClose() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Build the Results of the Command and release its Capture
+     */
+    private void complete(int _index, String _error) {
+        OutputCapture out = outs[_index];
+        CappedOutputStream err = errs[_index];
+        Date startTime = (startTimes[_index] != null) ? startTimes[_index] : new Date();
+        String error = ((err == null) ? "" : err.toString()) + _error;
+        results[_index] = (out == null)
+                ? new CommandResults(host, commands.get(_index), "", error, exitCodes[_index], startTime)
+                : new CommandResults(host, commands.get(_index), out.toByteArray(), error, exitCodes[_index],
+                        startTime, out.getTruncation());
+        if(out != null) {
+            out.release();
+            outs[_index] = null;
+        }
+        errs[_index] = null;
+        completed++;
+    }
+
+    /**
+     * Results for the Commands that didn't complete, and release the Captures
+     */
+    private synchronized void finish() {
+        // Output after this is dropped
+        closed = true;
+        boolean stopped = false;
+        for(int x = 0; x < commands.size(); x++) {
+            if(results[x] != null) {
+                stopped = stopped || results[x].getExitCode() == null;
+                continue;
+            }
+            if(startTimes[x] != null && !stopped) {
+                complete(x, "Script stopped before the End of the Command");
+            } else {
+                results[x] = new CommandResults(host, commands.get(x), "",
+                        "Not run: the Bundle stopped before the Command", null, new Date());
+            }
+            stopped = true;
+        }
+        for(OutputCapture out : outs) {
+            if(out != null) {
+                out.release();
+            }
+        }
+    }
+
+    /**
+     * Create the Exec Channel (A Session being closed refuses the Registration)
+     */
+    private ChannelExec createExecChannel(String _command) throws IOException {
+        try {
+            return session.createExecChannel(_command);
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private boolean valid(int _index) {
+        return _index >= 0 && _index < commands.size();
+    }
+}
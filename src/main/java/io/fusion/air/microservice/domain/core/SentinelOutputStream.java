@@ -0,0 +1,204 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sentinel Output Stream - Captures the Shell Output of a Command and detects the
+ * End Marker (followed by the Exit Code) as the bytes arrive from the Channel.
+ *
+ * Output Format: [command output]MARKER[exit code]\n
+ *
+ * The Output is kept within the Capture Policy (Head + Tail), the Marker is always
+ * the last thing written, so it's dropped from the Tail.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class SentinelOutputStream extends OutputStream {
+
+    private final OutputCapture output;
+
+    // Armed Marker and its KMP Failure Table
+    private byte[] marker;
+    private int[] failure;
+    private int matched;
+
+    private boolean readingExitCode;
+    private int exitCode;
+    private boolean exitCodeDigits;
+    private boolean negative;
+    private CountDownLatch done;
+
+    /**
+     * Create the Sentinel Output Stream
+     * @param _policy Head + Tail kept from the Output
+     */
+    public SentinelOutputStream(CapturePolicy _policy) {
+        output = _policy.newCapture();
+    }
+
+    /**
+     * Arm the Stream for the next Command
+     * @param _marker
+     */
+    public synchronized void arm(String _marker) {
+        marker          = _marker.getBytes(StandardCharsets.UTF_8);
+        failure         = failureTable(marker);
+        matched         = 0;
+        readingExitCode = false;
+        exitCode        = 0;
+        exitCodeDigits  = false;
+        negative        = false;
+        output.reset();
+        done            = new CountDownLatch(1);
+    }
+
+    /**
+     * Wait for the Marker
+     * @param _timeout
+     * @param _unit
+     * @return True if the Marker was found within the Timeout
+     * @throws InterruptedException
+     */
+    public boolean await(long _timeout, TimeUnit _unit) throws InterruptedException {
+        CountDownLatch latch;
+        synchronized (this) {
+            latch = done;
+        }
+        return latch != null && latch.await(_timeout, _unit);
+    }
+
+    /**
+     * Returns the Captured Output (without the Marker)
+     * @return
+     */
+    public synchronized String getOutput() {
+        return output.toString();
+    }
+
+    /**
+     * Returns the Captured Output Bytes (without the Marker)
+     * @return
+     */
+    public synchronized byte[] getOutputBytes() {
+        return output.toByteArray();
+    }
+
+    /**
+     * Returns the Output Truncation (null if the Output was kept in full)
+     * @return
+     */
+    public synchronized OutputTruncation getTruncation() {
+        return output.getTruncation();
+    }
+
+    /**
+     * Returns the Exit Code (null if the Marker was not found)
+     * @return
+     */
+    public synchronized Integer getExitCode() {
+        return (done != null && done.getCount() == 0 && exitCodeDigits)
+                ? (negative ? -exitCode : exitCode) : null;
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        // Not Armed or Already Done: Discard (Ex. Prompts after the Marker)
+        if(done == null || done.getCount() == 0) {
+            return;
+        }
+        int start = off;
+        int end = off + len;
+        for(int x = off; x < end; x++) {
+            byte c = b[x];
+            if(readingExitCode) {
+                if(c >= '0' && c <= '9') {
+                    exitCode = exitCode * 10 + (c - '0');
+                    exitCodeDigits = true;
+                } else if(c == '-' && !exitCodeDigits) {
+                    negative = true;
+                } else if(c == '\n') {
+                    done.countDown();
+                    return;
+                }
+                start = x + 1;
+                continue;
+            }
+            while(matched > 0 && marker[matched] != c) {
+                matched = failure[matched - 1];
+            }
+            if(marker[matched] == c) {
+                matched++;
+            }
+            if(matched == marker.length) {
+                // Keep the Output before the Marker only
+                output.write(b, start, x + 1 - start);
+                output.truncate(marker.length);
+                readingExitCode = true;
+                start = x + 1;
+            }
+        }
+        if(!readingExitCode && start < end) {
+            output.write(b, start, end - start);
+        }
+    }
+
+    /**
+     * KMP Failure Table for the Marker
+     * @param _pattern
+     * @return
+     */
+    private static int[] failureTable(byte[] _pattern) {
+        int[] table = new int[_pattern.length];
+        int k = 0;
+        for(int x = 1; x < _pattern.length; x++) {
+            while(k > 0 && _pattern[k] != _pattern[x]) {
+                k = table[k - 1];
+            }
+            if(_pattern[k] == _pattern[x]) {
+                k++;
+            }
+            table[x] = k;
+        }
+        return table;
+    }
+
+    /**
+     * Wake up the Waiter without the Marker (Ex. the Command is Cancelled)
+     */
+    public void abort() {
+        CountDownLatch latch;
+        synchronized (this) {
+            latch = done;
+        }
+        if(latch != null) {
+            latch.countDown();
+        }
+    }
+
+    /**
+     * No more Writes (SSHD closes the Stream with the Channel)
+     */
+    @Override
+    public synchronized void close() {
+        done = null;
+        output.close();
+    }
+
+    /**
+     * Returns the Capture Buffers to the Pool
+     */
+    public synchronized void release() {
+        close();
+        output.release();
+    }
+}
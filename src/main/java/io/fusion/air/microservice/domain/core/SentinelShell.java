@@ -0,0 +1,169 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.channel.ChannelShell;
+import org.apache.sshd.client.session.ClientSession;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Sentinel Shell - A Persistent Shell Channel (No PTY) that detects the Command
+ * Completion from the Output Stream. Every Command is followed by an End Marker
+ * carrying the Exit Code. The Command completes the moment the Marker arrives and
+ * the Shell stays open for the next Command.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class SentinelShell {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final String MARKER_PREFIX = "__SSHCLIENT_";
+    private static final String MARKER_SUFFIX = "END_";
+    // Std Error kept in Memory per Command
+    private static final int MAX_ERROR = 64 * 1024;
+
+    private final String host;
+    private final ChannelShell channel;
+    private final SentinelOutputStream responseStream;
+    private final CappedOutputStream errorStream;
+    private final OutputStream commandStream;
+    private volatile boolean broken;
+    private volatile boolean cancelled;
+
+    /**
+     * Open the Shell and Drain the Startup Output (Login Profile, MOTD etc.)
+     *
+     * @param _host
+     * @param _session
+     * @param _timeoutSeconds
+     * @throws IOException
+     */
+    public SentinelShell(String _host, ClientSession _session, long _timeoutSeconds) throws IOException {
+        this(_host, _session, _timeoutSeconds, CapturePolicy.DEFAULT);
+    }
+
+    /**
+     * Open the Shell with the Capture Policy (Output kept per Command)
+     *
+     * @param _host
+     * @param _session
+     * @param _timeoutSeconds
+     * @param _policy
+     * @throws IOException
+     */
+    public SentinelShell(String _host, ClientSession _session, long _timeoutSeconds,
+                         CapturePolicy _policy) throws IOException {
+        host            = _host;
+        responseStream  = new SentinelOutputStream(_policy);
+        errorStream     = new CappedOutputStream(MAX_ERROR);
+        channel         = _session.createShellChannel();
+        channel.setUsePty(false);
+        channel.setOut(responseStream);
+        channel.setErr(errorStream);
+        channel.open().verify(_timeoutSeconds, TimeUnit.SECONDS);
+        commandStream   = channel.getInvertedIn();
+        execute(null, _timeoutSeconds);
+    }
+
+    /**
+     * Execute the Command in the Shell
+     *
+     * @param _command (null = Sync with the Shell only)
+     * @param _timeoutSeconds
+     * @return
+     * @throws IOException
+     */
+    public synchronized CommandResults execute(String _command, long _timeoutSeconds) throws IOException {
+        if(broken || !isOpen()) {
+            throw new IOException("Shell Channel is not Open");
+        }
+        String id = UUID.randomUUID().toString().replace("-", "");
+        String marker = MARKER_PREFIX + MARKER_SUFFIX + id + "__:";
+        errorStream.reset();
+        responseStream.arm(marker);
+        Date dt = new Date();
+        StringBuilder sb = new StringBuilder();
+        if(_command != null) {
+            sb.append(_command).append("\n");
+        }
+        // Split the Marker in the Echo, so that an Echo of the Input never matches it
+        sb.append("echo \"").append(MARKER_PREFIX).append("\"\"").append(MARKER_SUFFIX)
+                .append(id).append("__:$?\"\n");
+        try {
+            if(cancelled) {
+                // Cancelled before the Stream was armed
+                throw new InterruptedIOException("Command Cancelled");
+            }
+            commandStream.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            commandStream.flush();
+            boolean found = responseStream.await(_timeoutSeconds, TimeUnit.SECONDS);
+            if(cancelled) {
+                throw new InterruptedIOException("Command Cancelled");
+            }
+            if(!found) {
+                // Shell state is unknown now, it can't be reused
+                broken = true;
+                log.warn("Shell Command timed out after "+_timeoutSeconds+" Seconds: "+_command);
+                CommandResults timedOut = new CommandResults(host, _command, responseStream.getOutputBytes(),
+                        errorStream.toString() + "Timed out after "+_timeoutSeconds+" Seconds", null, dt,
+                        responseStream.getTruncation());
+                // Don't leave the Command running in the Shell (on the Pooled Session)
+                RemoteCancel.abort(channel);
+                return timedOut;
+            }
+        } catch (InterruptedException e) {
+            broken = true;
+            // Don't leave the Command running in the Shell
+            RemoteCancel.abort(channel);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the Shell");
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+        return new CommandResults(host, _command, responseStream.getOutputBytes(), errorStream.toString(),
+                responseStream.getExitCode(), dt, responseStream.getTruncation());
+    }
+
+    /**
+     * Returns True if the Shell can run the next Command
+     * @return
+     */
+    public boolean isOpen() {
+        return !broken && channel.isOpen() && !channel.isClosing();
+    }
+
+    /**
+     * Cancel the running Command (from any Thread) - Signal and close the Shell, the
+     * waiting Command returns at once. The Shell can't be reused.
+     */
+    public void cancel() {
+        cancelled = true;
+        broken = true;
+        // Wake up the Waiter first (Closing the Channel disarms the Stream)
+        responseStream.abort();
+        RemoteCancel.abort(channel);
+    }
+
+    /**
+     * Close the Shell
+     */
+    public void close() {
+        broken = true;
+        channel.close(false);
+        responseStream.release();
+    }
+}
@@ -0,0 +1,118 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shell Session - A Named, Stateful Shell identified by a Reference No.
+ * Working Directory and Environment carry over between the Commands.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class ShellSession {
+
+    private final String referenceNo;
+    private final PooledSession pooledSession;
+    private final SentinelShell shell;
+    private final long timeoutSeconds;
+    private final Date createdTime;
+    private final AtomicLong commands;
+    private volatile long lastUsedTime;
+    private volatile boolean closed;
+
+    /**
+     * Create the Shell Session
+     *
+     * @param _referenceNo
+     * @param _pooledSession
+     * @param _shell
+     * @param _timeoutSeconds
+     */
+    ShellSession(String _referenceNo, PooledSession _pooledSession, SentinelShell _shell, long _timeoutSeconds) {
+        referenceNo     = _referenceNo;
+        pooledSession   = _pooledSession;
+        shell           = _shell;
+        timeoutSeconds  = _timeoutSeconds;
+        createdTime     = new Date();
+        commands        = new AtomicLong();
+        lastUsedTime    = createdTime.getTime();
+    }
+
+    /**
+     * Execute the Command in the Shell
+     * @param _command
+     * @return
+     * @throws IOException
+     */
+    public CommandResults execute(String _command) throws IOException {
+        if(closed) {
+            throw new IOException("Shell Session "+referenceNo+" is closed");
+        }
+        touch();
+        try {
+            commands.incrementAndGet();
+            return shell.execute(_command, timeoutSeconds);
+        } finally {
+            touch();
+        }
+    }
+
+    /**
+     * Mark the Session as Used (Extends the Idle Expiry)
+     */
+    public void touch() {
+        lastUsedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the Session Status
+     * @param _idleMillis
+     * @return
+     */
+    public Map<String, Object> getStatus(long _idleMillis) {
+        LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("ReferenceNo", referenceNo);
+        status.put("Type", "SHELL");
+        status.put("Target", pooledSession.getKey().toString());
+        status.put("Open", isOpen());
+        status.put("Created", createdTime);
+        status.put("LastUsed", new Date(lastUsedTime));
+        status.put("Commands", commands.get());
+        status.put("IdleExpiresInMillis", Math.max(0, lastUsedTime + _idleMillis - System.currentTimeMillis()));
+        return status;
+    }
+
+    public String getReferenceNo() {
+        return referenceNo;
+    }
+
+    public long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    public boolean isOpen() {
+        return !closed && shell.isOpen();
+    }
+
+    PooledSession getPooledSession() {
+        return pooledSession;
+    }
+
+    /**
+     * Close the Shell
+     * @return True if this call closed it
+     */
+    synchronized boolean close() {
+        if(closed) {
+            return false;
+        }
+        closed = true;
+        shell.close();
+        return true;
+    }
+}
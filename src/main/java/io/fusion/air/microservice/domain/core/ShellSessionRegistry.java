@@ -0,0 +1,178 @@
+package io.fusion.air.microservice.domain.core;
+
+import io.fusion.air.microservice.utils.HashedWheelTimer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Shell Session Registry - Named Shell Sessions by Reference No.
+ * Each Shell Session holds a Pooled Session (and its own Shell Channel) until it is
+ * closed or stays Idle beyond the Idle Time (checked on the Hashed Wheel Timer).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ShellSessionRegistry {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final SSHSessionPool sessionPool;
+    private final HashedWheelTimer timer;
+    private final long idleMillis;
+    private final int maxSessions;
+    private final CapturePolicy capturePolicy;
+    private final ConcurrentHashMap<String, ShellSession> sessions;
+
+    /**
+     * Create the Shell Session Registry
+     *
+     * @param _sessionPool
+     * @param _timer
+     * @param _idleSeconds
+     * @param _maxSessions
+     */
+    public ShellSessionRegistry(SSHSessionPool _sessionPool, HashedWheelTimer _timer,
+                                long _idleSeconds, int _maxSessions) {
+        this(_sessionPool, _timer, _idleSeconds, _maxSessions, CapturePolicy.DEFAULT);
+    }
+
+    /**
+     * Create the Shell Session Registry with the Capture Policy
+     *
+     * @param _sessionPool
+     * @param _timer
+     * @param _idleSeconds
+     * @param _maxSessions
+     * @param _capturePolicy Output kept per Command
+     */
+    public ShellSessionRegistry(SSHSessionPool _sessionPool, HashedWheelTimer _timer,
+                                long _idleSeconds, int _maxSessions, CapturePolicy _capturePolicy) {
+        sessionPool = _sessionPool;
+        timer       = _timer;
+        idleMillis  = TimeUnit.SECONDS.toMillis(_idleSeconds);
+        maxSessions = _maxSessions;
+        capturePolicy = _capturePolicy;
+        sessions    = new ConcurrentHashMap<String, ShellSession>();
+    }
+
+    /**
+     * Open a Shell Session
+     *
+     * @param _username
+     * @param _password
+     * @param _host
+     * @param _port
+     * @param _timeoutSeconds
+     * @return
+     * @throws IOException
+     */
+    public ShellSession open(String _username, String _password, String _host, int _port,
+                             long _timeoutSeconds) throws IOException {
+        if(sessions.size() >= maxSessions) {
+            throw new IOException("Max Shell Sessions ("+maxSessions+") reached!");
+        }
+        PooledSession pooled = sessionPool.borrow(_username, _password, _host, _port, _timeoutSeconds);
+        SentinelShell shell;
+        try {
+            shell = new SentinelShell(_host, pooled.getSession(), _timeoutSeconds, capturePolicy);
+        } catch (IOException | RuntimeException e) {
+            sessionPool.invalidate(pooled);
+            throw e;
+        }
+        String referenceNo = UUID.randomUUID().toString();
+        ShellSession session = new ShellSession(referenceNo, pooled, shell, _timeoutSeconds);
+        sessions.put(referenceNo, session);
+        scheduleIdleCheck(session, idleMillis);
+        log.info("Opened Shell Session "+referenceNo+" on "+pooled.getKey());
+        return session;
+    }
+
+    /**
+     * Returns the Shell Session (null if not found)
+     * @param _referenceNo
+     * @return
+     */
+    public ShellSession get(String _referenceNo) {
+        return (_referenceNo == null) ? null : sessions.get(_referenceNo);
+    }
+
+    /**
+     * Close the Shell Session
+     * @param _referenceNo
+     * @return True if the Session was found and closed
+     */
+    public boolean close(String _referenceNo) {
+        ShellSession session = (_referenceNo == null) ? null : sessions.remove(_referenceNo);
+        if(session == null) {
+            return false;
+        }
+        closeSession(session);
+        return true;
+    }
+
+    /**
+     * Close all the Shell Sessions
+     */
+    public void close() {
+        for(String referenceNo : sessions.keySet()) {
+            close(referenceNo);
+        }
+    }
+
+    /**
+     * Returns the Idle Time in Millis
+     * @return
+     */
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    /**
+     * Returns the Number of Open Shell Sessions
+     * @return
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Check the Idle Time when the Timer fires. Active Sessions are re-scheduled
+     * for the remaining Idle Time, instead of cancelling the Timeout on every use.
+     *
+     * @param _session
+     * @param _delayMillis
+     */
+    private void scheduleIdleCheck(ShellSession _session, long _delayMillis) {
+        timer.newTimeout(() -> {
+            if(sessions.get(_session.getReferenceNo()) != _session) {
+                return;
+            }
+            long idle = System.currentTimeMillis() - _session.getLastUsedTime();
+            if(idle >= idleMillis || !_session.isOpen()) {
+                log.info("Shell Session "+_session.getReferenceNo()+" expired after "+idle+" ms idle");
+                close(_session.getReferenceNo());
+            } else {
+                scheduleIdleCheck(_session, idleMillis - idle);
+            }
+        }, _delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Close the Shell and return the Session to the Pool
+     * @param _session
+     */
+    private void closeSession(ShellSession _session) {
+        if(_session.close()) {
+            sessionPool.release(_session.getPooledSession());
+        }
+    }
+}
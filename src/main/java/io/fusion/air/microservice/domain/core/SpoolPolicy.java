@@ -0,0 +1,74 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.slf4j.Logger;
+
+import java.io.File;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Spool Policy - Where and when the Full Output of a Job spills to Disk.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class SpoolPolicy {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final String SUFFIX = ".spool";
+
+    private final File directory;
+    private final int memoryBytes;
+    private final long maxBytes;
+
+    /**
+     * Create the Spool Policy. Spill Files left from the last run are removed.
+     *
+     * @param _directory Spill Directory (null or empty = {java.io.tmpdir}/ssh-spool)
+     * @param _memoryBytes Bytes kept in Memory before the Spill
+     * @param _maxBytes Max Bytes kept per Job (0 = No Limit)
+     */
+    public SpoolPolicy(String _directory, int _memoryBytes, long _maxBytes) {
+        directory   = (_directory == null || _directory.trim().isEmpty())
+                        ? new File(System.getProperty("java.io.tmpdir"), "ssh-spool")
+                        : new File(_directory.trim());
+        memoryBytes = _memoryBytes;
+        maxBytes    = _maxBytes;
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            log.error("Unable to create the Spool Directory "+directory);
+        }
+        File[] stale = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if(stale != null) {
+            for(File file : stale) {
+                if(!file.delete()) {
+                    log.warn("Unable to delete the Spill File "+file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new Output Spool for the Job (Close it to delete the Spill File)
+     * @param _referenceNo
+     * @return
+     */
+    public OutputSpool newSpool(String _referenceNo) {
+        return new OutputSpool(_referenceNo, new File(directory, _referenceNo + SUFFIX), memoryBytes, maxBytes);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
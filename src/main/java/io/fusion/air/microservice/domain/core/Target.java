@@ -0,0 +1,110 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Target - A Host in the Inventory with its own Credentials and Settings
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class Target {
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final Set<String> groups;
+    private final Set<String> tags;
+    private final long timeoutSeconds;
+    private final ExecMode execMode;
+
+    /**
+     * Create the Target
+     *
+     * @param _name
+     * @param _host
+     * @param _port
+     * @param _user
+     * @param _password
+     * @param _groups
+     * @param _tags
+     * @param _timeoutSeconds
+     * @param _execMode
+     */
+    public Target(String _name, String _host, int _port, String _user, String _password,
+                  Set<String> _groups, Set<String> _tags, long _timeoutSeconds, ExecMode _execMode) {
+        name            = _name;
+        host            = _host;
+        port            = _port;
+        user            = _user;
+        password        = _password;
+        groups          = Collections.unmodifiableSet(_groups);
+        tags            = Collections.unmodifiableSet(_tags);
+        timeoutSeconds  = _timeoutSeconds;
+        execMode        = _execMode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public Set<String> getGroups() {
+        return groups;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public ExecMode getExecMode() {
+        return execMode;
+    }
+
+    /**
+     * Returns the Target Details (without the Credentials)
+     * @return
+     */
+    public Map<String, Object> getDetails() {
+        LinkedHashMap<String, Object> details = new LinkedHashMap<String, Object>();
+        details.put("name", name);
+        details.put("host", host);
+        details.put("port", port);
+        details.put("user", user);
+        details.put("groups", groups);
+        details.put("tags", tags);
+        details.put("timeoutSeconds", timeoutSeconds);
+        details.put("execMode", execMode);
+        return details;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + user + "@" + host + ":" + port + ")";
+    }
+}
@@ -0,0 +1,147 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Target Index - An Immutable Snapshot of the Inventory.
+ * Name -> Position for the Lookups and Tag / Group -> BitSet (of Positions) for the
+ * Selectors, so a Selector is a handful of BitSet ANDs instead of a Scan of every Target.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+final class TargetIndex {
+
+    static final TargetIndex EMPTY = new TargetIndex(Collections.<Target>emptyList());
+
+    private final Target[] targets;
+    private final HashMap<String, Integer> byName;
+    private final HashMap<String, BitSet> byTag;
+    private final HashMap<String, BitSet> byGroup;
+
+    /**
+     * Build the Index (Target Names must be unique)
+     * @param _targets
+     */
+    TargetIndex(List<Target> _targets) {
+        targets = _targets.toArray(new Target[0]);
+        byName  = new HashMap<String, Integer>(targets.length * 2);
+        byTag   = new HashMap<String, BitSet>();
+        byGroup = new HashMap<String, BitSet>();
+        for(int x = 0; x < targets.length; x++) {
+            byName.put(targets[x].getName(), x);
+            for(String tag : targets[x].getTags()) {
+                bits(byTag, tag).set(x);
+            }
+            for(String group : targets[x].getGroups()) {
+                bits(byGroup, group).set(x);
+            }
+        }
+    }
+
+    /**
+     * Returns the Target (null if not found)
+     * @param _name
+     * @return
+     */
+    Target get(String _name) {
+        Integer position = byName.get(_name);
+        return (position == null) ? null : targets[position];
+    }
+
+    /**
+     * Select the Targets. The Selector is a comma separated list of Terms
+     * <pre>
+     * tag:prod         Targets with the Tag
+     * group:web        Targets in the Group
+     * !tag:canary      Targets without the Tag (also !group:)
+     * web-01           Target by Name (also name:web-01)
+     * *                All the Targets
+     * </pre>
+     * Tag and Group Terms are intersected. Names are combined (union) and then
+     * intersected with the Tag and Group Terms (if any).
+     *
+     * @param _selector
+     * @return Targets in Inventory order
+     */
+    List<Target> select(String _selector) {
+        BitSet names = null;
+        BitSet match = new BitSet(targets.length);
+        match.set(0, targets.length);
+        for(String raw : _selector.split(",")) {
+            String term = raw.trim();
+            if(term.isEmpty() || term.equals("*")) {
+                continue;
+            }
+            boolean negate = term.startsWith("!");
+            if(negate) {
+                term = term.substring(1).trim();
+            }
+            BitSet bits;
+            if(term.startsWith("tag:")) {
+                bits = byTag.get(term.substring(4).trim());
+            } else if(term.startsWith("group:")) {
+                bits = byGroup.get(term.substring(6).trim());
+            } else {
+                Integer position = byName.get(term.startsWith("name:") ? term.substring(5).trim() : term);
+                if(negate) {
+                    if(position != null) {
+                        match.clear(position);
+                    }
+                    continue;
+                }
+                if(names == null) {
+                    names = new BitSet(targets.length);
+                }
+                if(position != null) {
+                    names.set(position);
+                }
+                continue;
+            }
+            if(negate) {
+                if(bits != null) {
+                    match.andNot(bits);
+                }
+            } else if(bits == null) {
+                return Collections.emptyList();
+            } else {
+                match.and(bits);
+            }
+        }
+        if(names != null) {
+            match.and(names);
+        }
+        ArrayList<Target> selected = new ArrayList<Target>(match.cardinality());
+        for(int x = match.nextSetBit(0); x >= 0; x = match.nextSetBit(x + 1)) {
+            selected.add(targets[x]);
+        }
+        return selected;
+    }
+
+    int size() {
+        return targets.length;
+    }
+
+    int tagCount() {
+        return byTag.size();
+    }
+
+    int groupCount() {
+        return byGroup.size();
+    }
+
+    private static BitSet bits(Map<String, BitSet> _index, String _key) {
+        BitSet bits = _index.get(_key);
+        if(bits == null) {
+            bits = new BitSet();
+            _index.put(_key, bits);
+        }
+        return bits;
+    }
+}
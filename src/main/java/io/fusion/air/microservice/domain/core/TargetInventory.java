@@ -0,0 +1,253 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Target Inventory - The Hosts (with Groups, Tags, Credentials and Settings) loaded
+ * from the Inventory File. One Target per Line
+ * <pre>
+ * # name   host[:port]     [user=] [password=] [groups=a,b] [tags=x,y] [timeout=sec] [mode=EXEC]
+ * web-01   10.0.0.11       groups=web tags=prod,eu
+ * db-01    10.0.0.21:2222  user=dba password=secret groups=db tags=prod,us timeout=30
+ * db-02    [fd00::21]:22   groups=db
+ * </pre>
+ * Missing Settings fall back to the Configured Host (ssh.crdu, ssh.crdp, ssh.port ...).
+ * Only the Inventory Targets (and the Configured Host) are resolved, the Credentials
+ * are never used for a Host named by the caller.
+ * A Reload builds a new Index and swaps it in, the Lookups never take a Lock.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TargetInventory {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final Path file;
+    private final Target defaultTarget;
+    private volatile TargetIndex index;
+    private volatile long loadedTime;
+
+    /**
+     * Create the Target Inventory
+     *
+     * @param _file Inventory File
+     * @param _defaultTarget Configured Host (Default Settings for the Targets)
+     */
+    public TargetInventory(String _file, Target _defaultTarget) {
+        file            = Paths.get(_file);
+        defaultTarget   = _defaultTarget;
+        index           = TargetIndex.EMPTY;
+    }
+
+    /**
+     * Load the Inventory File (An empty Inventory if the File doesn't exist)
+     * @return No. of Targets loaded
+     * @throws IOException
+     */
+    public synchronized int reload() throws IOException {
+        if(!Files.exists(file)) {
+            log.warn("Inventory File "+file.toAbsolutePath()+" not found! Using the Configured Host only.");
+            index = TargetIndex.EMPTY;
+            loadedTime = System.currentTimeMillis();
+            return 0;
+        }
+        List<Target> targets = new ArrayList<Target>();
+        HashSet<String> names = new HashSet<String>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    Target target = parse(line);
+                    if(!names.add(target.getName())) {
+                        log.warn("Inventory Line "+lineNo+": Duplicate Target "+target.getName()+" skipped");
+                        continue;
+                    }
+                    targets.add(target);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Inventory Line "+lineNo+": "+e.getMessage()+" skipped");
+                }
+            }
+        }
+        // Swap the Index
+        index = new TargetIndex(targets);
+        loadedTime = System.currentTimeMillis();
+        log.info("Inventory loaded from "+file.toAbsolutePath()+" Targets = "+targets.size());
+        return targets.size();
+    }
+
+    /**
+     * Returns the Target (null if not found)
+     * @param _name
+     * @return
+     */
+    public Target get(String _name) {
+        return (_name == null) ? null : index.get(_name);
+    }
+
+    /**
+     * Resolve the Target by its Inventory Name (or the Name of the Configured Host).
+     * No Target = The Configured Host.
+     *
+     * @param _target
+     * @return
+     * @throws IllegalArgumentException if the Target is not in the Inventory
+     */
+    public Target resolve(String _target) {
+        if(_target == null || _target.trim().isEmpty()) {
+            return defaultTarget;
+        }
+        String name = _target.trim();
+        Target target = index.get(name);
+        if(target != null) {
+            return target;
+        }
+        if(name.equals(defaultTarget.getName())) {
+            return defaultTarget;
+        }
+        throw new IllegalArgumentException("Unknown Target "+name+" (Not in the Inventory)");
+    }
+
+    /**
+     * Select the Targets (tag:x, group:x, !tag:x, name, *)
+     * @param _selector
+     * @return
+     */
+    public List<Target> select(String _selector) {
+        return (_selector == null) ? Collections.<Target>emptyList() : index.select(_selector);
+    }
+
+    /**
+     * Returns the Default (Configured) Target
+     * @return
+     */
+    public Target getDefaultTarget() {
+        return defaultTarget;
+    }
+
+    /**
+     * Returns the Inventory Stats
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        TargetIndex current = index;
+        LinkedHashMap<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("file", file.toAbsolutePath().toString());
+        stats.put("targets", current.size());
+        stats.put("tags", current.tagCount());
+        stats.put("groups", current.groupCount());
+        stats.put("loaded", new Date(loadedTime));
+        return stats;
+    }
+
+    /**
+     * Parse the Inventory Line
+     * @param _line
+     * @return
+     */
+    private Target parse(String _line) {
+        String[] tokens = _line.split("\\s+");
+        if(tokens.length < 2) {
+            throw new IllegalArgumentException("Expected: name host[:port] [key=value ...]");
+        }
+        String name = tokens[0];
+        String host = tokens[1];
+        int port = defaultTarget.getPort();
+        if(host.startsWith("[")) {
+            // IPv6 Literal: [address] or [address]:port
+            int close = host.indexOf(']');
+            if(close < 2 || (close + 1 < host.length() && host.charAt(close + 1) != ':')) {
+                throw new IllegalArgumentException("Invalid Host "+host+" (Expected: [IPv6] or [IPv6]:port)");
+            }
+            if(close + 1 < host.length()) {
+                port = parseInt(host.substring(close + 2), "port");
+            }
+            host = host.substring(1, close);
+        } else if(host.indexOf(':') != host.lastIndexOf(':')) {
+            throw new IllegalArgumentException("IPv6 Host "+host+" needs Brackets ([IPv6]:port)");
+        } else {
+            int colon = host.lastIndexOf(':');
+            if(colon > 0) {
+                port = parseInt(host.substring(colon + 1), "port");
+                host = host.substring(0, colon);
+            }
+        }
+        String user = defaultTarget.getUser();
+        String password = defaultTarget.getPassword();
+        Set<String> groups = Collections.emptySet();
+        Set<String> tags = Collections.emptySet();
+        long timeoutSeconds = defaultTarget.getTimeoutSeconds();
+        ExecMode execMode = defaultTarget.getExecMode();
+        for(int x = 2; x < tokens.length; x++) {
+            int eq = tokens[x].indexOf('=');
+            if(eq <= 0) {
+                throw new IllegalArgumentException("Invalid Setting "+tokens[x]);
+            }
+            String key = tokens[x].substring(0, eq);
+            String value = tokens[x].substring(eq + 1);
+            switch(key) {
+                case "user":        user = value; break;
+                case "password":    password = value; break;
+                case "groups":      groups = toSet(value); break;
+                case "tags":        tags = toSet(value); break;
+                case "timeout":     timeoutSeconds = parseInt(value, key); break;
+                case "mode":
+                    try {
+                        execMode = ExecMode.valueOf(value.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Invalid mode "+value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown Setting "+key);
+            }
+        }
+        return new Target(name, host, port, user, password, groups, tags, timeoutSeconds, execMode);
+    }
+
+    private static Set<String> toSet(String _values) {
+        LinkedHashSet<String> values = new LinkedHashSet<String>();
+        for(String value : Arrays.asList(_values.split(","))) {
+            if(!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private static int parseInt(String _value, String _key) {
+        try {
+            return Integer.parseInt(_value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid "+_key+" "+_value);
+        }
+    }
+}
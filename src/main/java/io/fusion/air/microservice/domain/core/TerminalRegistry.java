@@ -0,0 +1,157 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.channel.ChannelShell;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Terminal Registry - Interactive Shells (with a PTY) on Pooled Sessions.
+ * Each Terminal has a Reader Thread pumping the Shell Output to its Sink.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TerminalRegistry {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final SSHSessionPool sessionPool;
+    private final int maxTerminals;
+    private final String ptyType;
+    private final ConcurrentHashMap<String, TerminalSession> terminals;
+    private final ExecutorService readers;
+
+    /**
+     * Create the Terminal Registry
+     *
+     * @param _sessionPool
+     * @param _maxTerminals
+     * @param _ptyType Ex. xterm-256color
+     */
+    public TerminalRegistry(SSHSessionPool _sessionPool, int _maxTerminals, String _ptyType) {
+        sessionPool     = _sessionPool;
+        maxTerminals    = _maxTerminals;
+        ptyType         = _ptyType;
+        terminals       = new ConcurrentHashMap<String, TerminalSession>();
+        AtomicInteger threadNo = new AtomicInteger();
+        readers         = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ssh-terminal-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open a Terminal on the Target and start pumping the Output to the Sink
+     *
+     * @param _target
+     * @param _columns
+     * @param _rows
+     * @param _sink
+     * @return
+     * @throws IOException
+     */
+    public TerminalSession open(Target _target, int _columns, int _rows,
+                                TerminalSession.TerminalSink _sink) throws IOException {
+        if(terminals.size() >= maxTerminals) {
+            throw new IOException("Max Terminals ("+maxTerminals+") reached!");
+        }
+        PooledSession pooled = sessionPool.borrow(_target.getUser(), _target.getPassword(),
+                _target.getHost(), _target.getPort(), _target.getTimeoutSeconds());
+        TerminalSession terminal;
+        try {
+            ChannelShell channel = pooled.getSession().createShellChannel();
+            channel.setUsePty(true);
+            channel.setPtyType(ptyType);
+            channel.setPtyColumns(_columns);
+            channel.setPtyLines(_rows);
+            channel.open().verify(_target.getTimeoutSeconds(), TimeUnit.SECONDS);
+            terminal = new TerminalSession(UUID.randomUUID().toString(), pooled, channel);
+        } catch (IOException | RuntimeException e) {
+            sessionPool.invalidate(pooled);
+            throw e;
+        }
+        terminals.put(terminal.getReferenceNo(), terminal);
+        try {
+            readers.submit(() -> terminal.pump(new TerminalSession.TerminalSink() {
+                @Override
+                public void send(byte[] _buffer, int _length) throws IOException {
+                    _sink.send(_buffer, _length);
+                }
+
+                @Override
+                public void closed(String _reason) {
+                    close(terminal.getReferenceNo());
+                    _sink.closed(_reason);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            close(terminal.getReferenceNo());
+            throw new IOException("Terminal Registry is closed");
+        }
+        log.info("Opened Terminal "+terminal.getReferenceNo()+" on "+pooled.getKey()
+                +" ("+_columns+"x"+_rows+")");
+        return terminal;
+    }
+
+    /**
+     * Returns the Terminal (null if not found)
+     * @param _referenceNo
+     * @return
+     */
+    public TerminalSession get(String _referenceNo) {
+        return (_referenceNo == null) ? null : terminals.get(_referenceNo);
+    }
+
+    /**
+     * Close the Terminal and return the Session to the Pool
+     * @param _referenceNo
+     * @return True if the Terminal was found and closed
+     */
+    public boolean close(String _referenceNo) {
+        TerminalSession terminal = (_referenceNo == null) ? null : terminals.remove(_referenceNo);
+        if(terminal == null) {
+            return false;
+        }
+        if(terminal.close()) {
+            if(terminal.isFailed()) {
+                sessionPool.invalidate(terminal.getPooledSession());
+            } else {
+                sessionPool.release(terminal.getPooledSession());
+            }
+            log.info("Closed Terminal "+_referenceNo);
+        }
+        return true;
+    }
+
+    /**
+     * Close all the Terminals
+     */
+    public void close() {
+        for(String referenceNo : terminals.keySet()) {
+            close(referenceNo);
+        }
+        readers.shutdownNow();
+    }
+
+    /**
+     * Returns the Number of Open Terminals
+     * @return
+     */
+    public int size() {
+        return terminals.size();
+    }
+}
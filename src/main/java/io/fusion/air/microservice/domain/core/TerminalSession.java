@@ -0,0 +1,193 @@
+package io.fusion.air.microservice.domain.core;
+
+import org.apache.sshd.client.channel.ChannelShell;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Terminal Session - An Interactive Shell (with a PTY) bridged to a Terminal Client.
+ * Bytes pass through as is (No String conversion) in both directions.
+ *
+ * Flow Control:
+ * Output - The Reader pulls from the Channel's Piped Stream and blocks on the Sink,
+ *          the SSH Window is adjusted only after the Sink took the Bytes.
+ * Input  - write() blocks when the Remote Window is full, which stops the Client
+ *          Reader (and the TCP Connection) upstream.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class TerminalSession {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Receives the Terminal Output
+     */
+    public interface TerminalSink {
+        /**
+         * Send the Output (Blocks till the Client took it)
+         * The Buffer is reused after the call returns.
+         */
+        void send(byte[] _buffer, int _length) throws IOException;
+
+        /**
+         * Terminal closed (Shell exited or the Channel failed)
+         */
+        void closed(String _reason);
+    }
+
+    private final String referenceNo;
+    private final PooledSession pooledSession;
+    private final ChannelShell channel;
+    private final OutputStream input;
+    private final Date createdTime;
+    private final AtomicLong bytesIn;
+    private final AtomicLong bytesOut;
+    private volatile boolean closed;
+    private volatile boolean failed;
+
+    /**
+     * Create the Terminal Session (Channel is open)
+     *
+     * @param _referenceNo
+     * @param _pooledSession
+     * @param _channel
+     */
+    TerminalSession(String _referenceNo, PooledSession _pooledSession, ChannelShell _channel) {
+        referenceNo     = _referenceNo;
+        pooledSession   = _pooledSession;
+        channel         = _channel;
+        input           = _channel.getInvertedIn();
+        createdTime     = new Date();
+        bytesIn         = new AtomicLong();
+        bytesOut        = new AtomicLong();
+    }
+
+    /**
+     * Write the Client Input to the Shell (Blocks while the Remote Window is full)
+     *
+     * @param _bytes
+     * @param _offset
+     * @param _length
+     * @throws IOException
+     */
+    public void write(byte[] _bytes, int _offset, int _length) throws IOException {
+        if(closed) {
+            throw new IOException("Terminal "+referenceNo+" is closed");
+        }
+        try {
+            input.write(_bytes, _offset, _length);
+            input.flush();
+            bytesIn.addAndGet(_length);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Resize the PTY
+     *
+     * @param _columns
+     * @param _rows
+     * @throws IOException
+     */
+    public void resize(int _columns, int _rows) throws IOException {
+        if(closed) {
+            throw new IOException("Terminal "+referenceNo+" is closed");
+        }
+        channel.sendWindowChange(_columns, _rows);
+    }
+
+    /**
+     * Pump the Shell Output to the Sink till the Shell exits or the Terminal is closed
+     * (Runs on the Terminal Reader Thread)
+     *
+     * @param _sink
+     */
+    void pump(TerminalSink _sink) {
+        InputStream output = channel.getInvertedOut();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        String reason = "Shell exited";
+        try {
+            int read;
+            while(!closed && (read = output.read(buffer)) != -1) {
+                _sink.send(buffer, read);
+                bytesOut.addAndGet(read);
+            }
+        } catch (IOException e) {
+            if(!closed) {
+                // The Channel may be broken - Don't return the Session to the Pool
+                failed = true;
+                log.warn("Terminal "+referenceNo+" Output failed: "+e.getMessage());
+                reason = "Terminal failed: "+e.getMessage();
+            }
+        } finally {
+            _sink.closed(reason);
+        }
+    }
+
+    /**
+     * Returns the Terminal Status
+     * @return
+     */
+    public Map<String, Object> getStatus() {
+        LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("ReferenceNo", referenceNo);
+        status.put("Type", "TERMINAL");
+        status.put("Target", pooledSession.getKey().toString());
+        status.put("Open", isOpen());
+        status.put("Created", createdTime);
+        status.put("BytesIn", bytesIn.get());
+        status.put("BytesOut", bytesOut.get());
+        return status;
+    }
+
+    public String getReferenceNo() {
+        return referenceNo;
+    }
+
+    public boolean isOpen() {
+        return !closed && channel.isOpen() && !channel.isClosing();
+    }
+
+    /**
+     * Returns True if the Channel failed (the Session shouldn't go back to the Pool)
+     * @return
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    PooledSession getPooledSession() {
+        return pooledSession;
+    }
+
+    /**
+     * Close the Shell Channel
+     * @return True if this call closed it
+     */
+    synchronized boolean close() {
+        if(closed) {
+            return false;
+        }
+        closed = true;
+        channel.close(true);
+        return true;
+    }
+}
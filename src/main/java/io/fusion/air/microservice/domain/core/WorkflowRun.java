@@ -0,0 +1,351 @@
+package io.fusion.air.microservice.domain.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Workflow Run - A DAG of Commands (Nodes) across Targets and the State of every Node.
+ * A Node is Ready when all the Nodes it depends on completed. A failed Node skips all
+ * the Nodes that depend on it (directly or not), independent Branches keep running.
+ *
+ * The Graph is validated on Create (Unique Ids, known Dependencies, no Cycles).
+ * The State changes on the Scheduler's Thread (See FleetExecutor), the Status is read
+ * from any Thread.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class WorkflowRun<T> {
+
+    /**
+     * Node State
+     */
+    public enum NodeState {
+        WAITING, RUNNING, COMPLETED, FAILED, SKIPPED
+    }
+
+    /**
+     * Node of the Workflow (Command on a Target after the Nodes it depends on)
+     * @param <T>
+     */
+    public static final class Node<T> {
+        private final String id;
+        private final String command;
+        private final T target;
+        private final List<String> dependsOn;
+
+        /**
+         * Create the Node
+         *
+         * @param _id Unique in the Workflow
+         * @param _command
+         * @param _target
+         * @param _dependsOn Node Ids (null = None)
+         */
+        public Node(String _id, String _command, T _target, List<String> _dependsOn) {
+            id          = _id;
+            command     = _command;
+            target      = _target;
+            dependsOn   = (_dependsOn == null) ? Collections.<String>emptyList() : _dependsOn;
+        }
+    }
+
+    private final String name;
+    private final List<Node<T>> nodes;
+    private final List<String> commands;
+    // Nodes that depend on the Node (by Index)
+    private final List<List<Integer>> dependents;
+    private final int[] pendingDependencies;
+    private final NodeState[] states;
+    private final CommandResults[] results;
+    private final String[] errors;
+    private volatile Runnable listener;
+
+    /**
+     * Create the Workflow Run
+     *
+     * @param _name
+     * @param _nodes
+     * @throws IllegalArgumentException if the Graph is invalid
+     */
+    public WorkflowRun(String _name, List<Node<T>> _nodes) {
+        if(_nodes == null || _nodes.isEmpty()) {
+            throw new IllegalArgumentException("Workflow has no Nodes");
+        }
+        name        = _name;
+        nodes       = new ArrayList<Node<T>>(_nodes);
+        commands    = new ArrayList<String>(nodes.size());
+        dependents  = new ArrayList<List<Integer>>(nodes.size());
+        pendingDependencies = new int[nodes.size()];
+        states      = new NodeState[nodes.size()];
+        results     = new CommandResults[nodes.size()];
+        errors      = new String[nodes.size()];
+        HashMap<String, Integer> index = new HashMap<String, Integer>();
+        for(int x = 0; x < nodes.size(); x++) {
+            Node<T> node = nodes.get(x);
+            if(node.id == null || node.id.trim().isEmpty()) {
+                throw new IllegalArgumentException("Node "+(x + 1)+" has no Id");
+            }
+            if(node.command == null || node.command.trim().isEmpty()) {
+                throw new IllegalArgumentException("Node "+node.id+" has no Command");
+            }
+            if(index.put(node.id, x) != null) {
+                throw new IllegalArgumentException("Duplicate Node Id "+node.id);
+            }
+            commands.add(node.command);
+            dependents.add(new ArrayList<Integer>());
+            states[x] = NodeState.WAITING;
+        }
+        for(int x = 0; x < nodes.size(); x++) {
+            for(String id : nodes.get(x).dependsOn) {
+                Integer dependency = index.get(id);
+                if(dependency == null) {
+                    throw new IllegalArgumentException("Node "+nodes.get(x).id+" depends on an unknown Node "+id);
+                }
+                if(dependency == x) {
+                    throw new IllegalArgumentException("Node "+id+" depends on itself");
+                }
+                dependents.get(dependency).add(x);
+                pendingDependencies[x]++;
+            }
+        }
+        checkAcyclic();
+    }
+
+    /**
+     * Topological Sort (Kahn) - All the Nodes are reached only if there is no Cycle
+     */
+    private void checkAcyclic() {
+        int[] pending = pendingDependencies.clone();
+        ArrayDeque<Integer> ready = new ArrayDeque<Integer>();
+        for(int x = 0; x < pending.length; x++) {
+            if(pending[x] == 0) {
+                ready.add(x);
+            }
+        }
+        int reached = 0;
+        while(!ready.isEmpty()) {
+            int node = ready.poll();
+            reached++;
+            for(int dependent : dependents.get(node)) {
+                if(--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if(reached < nodes.size()) {
+            List<String> cycle = new ArrayList<String>();
+            for(int x = 0; x < pending.length; x++) {
+                if(pending[x] > 0) {
+                    cycle.add(nodes.get(x).id);
+                }
+            }
+            throw new IllegalArgumentException("Workflow has a Cycle between the Nodes "+cycle);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the Commands (by Node Index)
+     * @return
+     */
+    List<String> getCommands() {
+        return commands;
+    }
+
+    T getTarget(int _node) {
+        return nodes.get(_node).target;
+    }
+
+    String getId(int _node) {
+        return nodes.get(_node).id;
+    }
+
+    /**
+     * Called on every State Change (Ex. to wake up the Status Long Poll)
+     * @param _listener
+     */
+    public void setListener(Runnable _listener) {
+        listener = _listener;
+    }
+
+    /**
+     * Returns the Ready Nodes (Waiting, all the Dependencies completed) in the Order
+     * of the Workflow
+     * @return
+     */
+    synchronized List<Integer> ready() {
+        List<Integer> ready = new ArrayList<Integer>();
+        for(int x = 0; x < states.length; x++) {
+            if(states[x] == NodeState.WAITING && pendingDependencies[x] == 0) {
+                ready.add(x);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * WAITING -> RUNNING
+     * @param _node
+     */
+    void start(int _node) {
+        synchronized (this) {
+            states[_node] = NodeState.RUNNING;
+        }
+        fireChange();
+    }
+
+    /**
+     * RUNNING -> COMPLETED (The Dependents get closer to Ready) or FAILED (The
+     * Dependents are skipped)
+     *
+     * @param _node
+     * @param _result
+     * @param _failed
+     */
+    void complete(int _node, CommandResults _result, boolean _failed) {
+        synchronized (this) {
+            results[_node] = _result;
+            states[_node] = _failed ? NodeState.FAILED : NodeState.COMPLETED;
+            if(!_failed) {
+                for(int dependent : dependents.get(_node)) {
+                    pendingDependencies[dependent]--;
+                }
+            } else {
+                skipDependents(_node, "Skipped: "+nodes.get(_node).id+" failed");
+            }
+        }
+        fireChange();
+    }
+
+    /**
+     * Skip the Nodes that are still Waiting (Ex. Stop on Error)
+     * @param _reason
+     */
+    void skipWaiting(String _reason) {
+        synchronized (this) {
+            for(int x = 0; x < states.length; x++) {
+                if(states[x] == NodeState.WAITING) {
+                    states[x] = NodeState.SKIPPED;
+                    errors[x] = _reason;
+                }
+            }
+        }
+        fireChange();
+    }
+
+    /**
+     * Stop the Workflow - Running Nodes fail and Waiting Nodes are skipped
+     * @param _reason
+     */
+    void cancel(String _reason) {
+        synchronized (this) {
+            for(int x = 0; x < states.length; x++) {
+                if(states[x] == NodeState.RUNNING) {
+                    states[x] = NodeState.FAILED;
+                    errors[x] = _reason;
+                } else if(states[x] == NodeState.WAITING) {
+                    states[x] = NodeState.SKIPPED;
+                    errors[x] = _reason;
+                }
+            }
+        }
+        fireChange();
+    }
+
+    /**
+     * Returns True if a Node failed
+     * @return
+     */
+    public synchronized boolean isFailed() {
+        for(NodeState state : states) {
+            if(state == NodeState.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Count of Nodes per State
+     * @return
+     */
+    public synchronized Map<NodeState, Integer> getCounts() {
+        LinkedHashMap<NodeState, Integer> counts = new LinkedHashMap<NodeState, Integer>();
+        for(NodeState state : NodeState.values()) {
+            counts.put(state, 0);
+        }
+        for(NodeState state : states) {
+            counts.put(state, counts.get(state) + 1);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the Progress of the Workflow and the State (Result) of every Node
+     * @return
+     */
+    public synchronized Map<String, Object> getStatus() {
+        LinkedHashMap<String, Object> status = new LinkedHashMap<String, Object>();
+        status.put("Name", name);
+        status.put("Nodes", nodes.size());
+        for(Map.Entry<NodeState, Integer> count : getCounts().entrySet()) {
+            status.put(count.getKey().name().charAt(0) + count.getKey().name().substring(1).toLowerCase(),
+                    count.getValue());
+        }
+        List<Map<String, Object>> steps = new ArrayList<Map<String, Object>>(nodes.size());
+        for(int x = 0; x < nodes.size(); x++) {
+            Node<T> node = nodes.get(x);
+            LinkedHashMap<String, Object> step = new LinkedHashMap<String, Object>();
+            step.put("Id", node.id);
+            step.put("Command", node.command);
+            step.put("Target", String.valueOf(node.target));
+            step.put("DependsOn", node.dependsOn);
+            step.put("State", states[x]);
+            if(results[x] != null) {
+                step.put("Result", results[x]);
+            }
+            if(errors[x] != null) {
+                step.put("Error", errors[x]);
+            }
+            steps.add(step);
+        }
+        status.put("Steps", steps);
+        return status;
+    }
+
+    /**
+     * Skip the Nodes that depend on the Node (directly or not)
+     */
+    private void skipDependents(int _node, String _reason) {
+        ArrayDeque<Integer> pending = new ArrayDeque<Integer>(dependents.get(_node));
+        while(!pending.isEmpty()) {
+            int node = pending.poll();
+            if(states[node] == NodeState.WAITING) {
+                states[node] = NodeState.SKIPPED;
+                errors[node] = _reason;
+                pending.addAll(dependents.get(node));
+            }
+        }
+    }
+
+    private void fireChange() {
+        Runnable change = listener;
+        if(change != null) {
+            change.run();
+        }
+    }
+}
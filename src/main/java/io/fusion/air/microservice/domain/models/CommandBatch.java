@@ -0,0 +1,171 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.fusion.air.microservice.domain.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import io.fusion.air.microservice.utils.Utils;
+
+/**
+ * Command Batch - Commands to run (in order) on every Target
+ *
+ * Ex. { "commands": ["uptime", "df -h /var, /tmp"], "targets": ["web-1", "db-1"],
+ *       "selector": "tag:prod", "concurrency": 8, "timeoutSeconds": 30, "stopOnError": true,
+ *       "pipelined": false, "bundled": false }
+ *
+ * @author arafkarsh
+ *
+ */
+public class CommandBatch {
+
+	private List<String> commands;
+	// Inventory Names (Not host:port - Only the Targets in the Inventory can be used)
+	private List<String> targets;
+	// Inventory Selector (Ex. tag:prod,group:web)
+	private String selector;
+	// Targets in flight (0 = Default)
+	private int concurrency;
+	// Per Command Timeout (0 = Default)
+	private long timeoutSeconds;
+	// Skip the rest of the Commands on a Target after a failed one
+	private boolean stopOnError;
+	// Independent Commands - All at once on one Session per Target (Results in Order)
+	private boolean pipelined;
+	// All the Commands as one Script on one Channel per Target (Results in Order)
+	private boolean bundled;
+
+	/**
+	 * Command Batch
+	 */
+	public CommandBatch() {
+		commands	= new ArrayList<String>();
+		targets		= new ArrayList<String>();
+	}
+
+	/**
+	 * @return the commands
+	 */
+	public List<String> getCommands() {
+		return commands;
+	}
+
+	public void setCommands(List<String> _commands) {
+		commands = _commands;
+	}
+
+	/**
+	 * @return the targets (Inventory Names)
+	 */
+	public List<String> getTargets() {
+		return targets;
+	}
+
+	public void setTargets(List<String> _targets) {
+		targets = _targets;
+	}
+
+	/**
+	 * @return the selector
+	 */
+	public String getSelector() {
+		return selector;
+	}
+
+	public void setSelector(String _selector) {
+		selector = _selector;
+	}
+
+	/**
+	 * @return the concurrency
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int _concurrency) {
+		concurrency = _concurrency;
+	}
+
+	/**
+	 * @return the timeoutSeconds
+	 */
+	public long getTimeoutSeconds() {
+		return timeoutSeconds;
+	}
+
+	public void setTimeoutSeconds(long _timeoutSeconds) {
+		timeoutSeconds = _timeoutSeconds;
+	}
+
+	/**
+	 * @return the stopOnError
+	 */
+	public boolean isStopOnError() {
+		return stopOnError;
+	}
+
+	public void setStopOnError(boolean _stopOnError) {
+		stopOnError = _stopOnError;
+	}
+
+	/**
+	 * @return the pipelined
+	 */
+	public boolean isPipelined() {
+		return pipelined;
+	}
+
+	public void setPipelined(boolean _pipelined) {
+		pipelined = _pipelined;
+	}
+
+	/**
+	 * @return the bundled
+	 */
+	public boolean isBundled() {
+		return bundled;
+	}
+
+	public void setBundled(boolean _bundled) {
+		bundled = _bundled;
+	}
+
+	/**
+	 * Returns True if there is at least one Command and none of them is blank
+	 * (Pipelined and Bundled are exclusive)
+	 * @return
+	 */
+	@JsonIgnore
+	public boolean isValid() {
+		if(commands == null || commands.isEmpty() || (pipelined && bundled)) {
+			return false;
+		}
+		for(String command : commands) {
+			if(command == null || command.trim().isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public String toString() {
+		return Utils.toJsonString(this);
+	}
+}
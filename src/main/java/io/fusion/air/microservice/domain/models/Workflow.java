@@ -0,0 +1,142 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.fusion.air.microservice.domain.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.fusion.air.microservice.utils.Utils;
+
+/**
+ * Workflow - DAG of Commands across one or more Targets. Nodes run as soon as the
+ * Nodes they depend on completed (Independent Branches in parallel). A failed Node
+ * skips the Nodes that depend on it.
+ *
+ * Ex. { "name": "upgrade-app", "target": "web-1", "hostConcurrency": 2, "timeoutSeconds": 120,
+ *       "nodes": [
+ *         { "id": "stop",    "command": "systemctl stop app" },
+ *         { "id": "backup",  "command": "tar czf /tmp/app.tgz /opt/app", "dependsOn": ["stop"] },
+ *         { "id": "upgrade", "command": "/opt/app/bin/upgrade", "dependsOn": ["backup"] },
+ *         { "id": "verify",  "command": "systemctl start app && curl -fs localhost:8080/health",
+ *           "dependsOn": ["upgrade"] } ] }
+ *
+ * @author arafkarsh
+ *
+ */
+public class Workflow {
+
+	private String name;
+	private List<WorkflowNode> nodes;
+	// Default Target of the Nodes (null = Configured Host)
+	private String target;
+	// Nodes in flight (0 = Default)
+	private int concurrency;
+	// Nodes in flight per Host (0 = Default)
+	private int hostConcurrency;
+	// Per Node Timeout (0 = Default)
+	private long timeoutSeconds;
+	// Skip all the Waiting Nodes after a failed one (Default: only its Dependents)
+	private boolean stopOnError;
+
+	/**
+	 * Workflow
+	 */
+	public Workflow() {
+		nodes	= new ArrayList<WorkflowNode>();
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String _name) {
+		name = _name;
+	}
+
+	/**
+	 * @return the nodes
+	 */
+	public List<WorkflowNode> getNodes() {
+		return nodes;
+	}
+
+	public void setNodes(List<WorkflowNode> _nodes) {
+		nodes = _nodes;
+	}
+
+	/**
+	 * @return the target
+	 */
+	public String getTarget() {
+		return target;
+	}
+
+	public void setTarget(String _target) {
+		target = _target;
+	}
+
+	/**
+	 * @return the concurrency
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(int _concurrency) {
+		concurrency = _concurrency;
+	}
+
+	/**
+	 * @return the hostConcurrency
+	 */
+	public int getHostConcurrency() {
+		return hostConcurrency;
+	}
+
+	public void setHostConcurrency(int _hostConcurrency) {
+		hostConcurrency = _hostConcurrency;
+	}
+
+	/**
+	 * @return the timeoutSeconds
+	 */
+	public long getTimeoutSeconds() {
+		return timeoutSeconds;
+	}
+
+	public void setTimeoutSeconds(long _timeoutSeconds) {
+		timeoutSeconds = _timeoutSeconds;
+	}
+
+	/**
+	 * @return the stopOnError
+	 */
+	public boolean isStopOnError() {
+		return stopOnError;
+	}
+
+	public void setStopOnError(boolean _stopOnError) {
+		stopOnError = _stopOnError;
+	}
+
+	public String toString() {
+		return Utils.toJsonString(this);
+	}
+}
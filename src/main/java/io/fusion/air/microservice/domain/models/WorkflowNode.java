@@ -0,0 +1,97 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid 
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.fusion.air.microservice.domain.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.fusion.air.microservice.utils.Utils;
+
+/**
+ * Workflow Node - Command on a Target, runs after the Nodes it depends on
+ *
+ * Ex. { "id": "backup", "command": "tar czf /tmp/app.tgz /opt/app", "target": "web-1",
+ *       "dependsOn": ["stop"] }
+ *
+ * @author arafkarsh
+ *
+ */
+public class WorkflowNode {
+
+	// Unique in the Workflow
+	private String id;
+	private String command;
+	// Inventory Name (null = Target of the Workflow)
+	private String target;
+	// Node Ids
+	private List<String> dependsOn;
+
+	/**
+	 * Workflow Node
+	 */
+	public WorkflowNode() {
+		dependsOn	= new ArrayList<String>();
+	}
+
+	/**
+	 * @return the id
+	 */
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String _id) {
+		id = _id;
+	}
+
+	/**
+	 * @return the command
+	 */
+	public String getCommand() {
+		return command;
+	}
+
+	public void setCommand(String _command) {
+		command = _command;
+	}
+
+	/**
+	 * @return the target
+	 */
+	public String getTarget() {
+		return target;
+	}
+
+	public void setTarget(String _target) {
+		target = _target;
+	}
+
+	/**
+	 * @return the dependsOn
+	 */
+	public List<String> getDependsOn() {
+		return dependsOn;
+	}
+
+	public void setDependsOn(List<String> _dependsOn) {
+		dependsOn = _dependsOn;
+	}
+
+	public String toString() {
+		return Utils.toJsonString(this);
+	}
+}
@@ -1,9 +1,161 @@
 package io.fusion.air.microservice.domain.services;
 
+import io.fusion.air.microservice.domain.core.CommandJob;
+import io.fusion.air.microservice.domain.core.CommandResults;
+import io.fusion.air.microservice.domain.core.Target;
+import io.fusion.air.microservice.domain.models.CommandBatch;
+import io.fusion.air.microservice.domain.models.Workflow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * App Service
  *
  * @author arafkarsh
  */
 public interface AppService {
+
+	/**
+	 * Execute the Command on the Target
+	 * @param _command
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	public CommandResults executeCommand(String _command, String _target, String _tenant);
+
+	/**
+	 * Execute the Command on the Target and stream the Output as it arrives
+	 * @param _command
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @param _out
+	 * @return Command Results (without the Output) with the Std Error and Exit Code
+	 * @throws IOException
+	 */
+	public CommandResults streamCommand(String _command, String _target, String _tenant, OutputStream _out)
+			throws IOException;
+
+	/**
+	 * Invalidate the Cached Command Results
+	 * @param _target Inventory Name (null = All Targets)
+	 * @param _command (null = All Commands)
+	 * @return No. of Results removed
+	 */
+	public int invalidateResults(String _target, String _command);
+
+	/**
+	 * Execute the Commands (in Sequence) on the Target
+	 * @param _commands
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	public List<CommandResults> executeCommands(String[] _commands, String _target, String _tenant);
+
+	/**
+	 * Execute the independent Commands on the Target all at once (Many Channels on one
+	 * Session). Results are in the Submission Order.
+	 *
+	 * @param _commands
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	public List<CommandResults> executePipelined(String[] _commands, String _target, String _tenant);
+
+	/**
+	 * Execute the Commands on the Target as one Script (One Channel for all the
+	 * Commands). Results are in the Submission Order.
+	 *
+	 * @param _commands
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	public List<CommandResults> executeBundled(String[] _commands, String _target, String _tenant);
+
+	/**
+	 * Returns the Targets for the Hosts (Inventory Names) and the
+	 * Inventory Selector (tag:x, group:x ...). Duplicates are removed.
+	 *
+	 * @param _hosts Comma separated (Optional)
+	 * @param _selector (Optional)
+	 * @return
+	 */
+	public List<Target> selectTargets(String _hosts, String _selector);
+
+	/**
+	 * Execute the Command on all the Targets in parallel. Results are handed to the
+	 * Sink as each Target finishes.
+	 *
+	 * @param _command
+	 * @param _targets
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @param _concurrency Concurrency Window (0 = Default)
+	 * @param _timeoutSeconds Per Host Timeout (0 = Default)
+	 * @param _sink
+	 * @throws InterruptedException
+	 */
+	public void executeOnTargets(String _command, List<Target> _targets, String _tenant, int _concurrency,
+							   long _timeoutSeconds, Consumer<CommandResults> _sink) throws InterruptedException;
+
+	/**
+	 * Execute the Batch - Commands in order on every Target (all at once if the Batch
+	 * is Pipelined, as one Script if it's Bundled), Targets in parallel. Results are
+	 * handed to the Sink as each Command (Pipelined / Bundled: each Target) finishes.
+	 *
+	 * @param _batch
+	 * @param _targets Targets of the Batch (See selectTargets)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @param _sink
+	 * @throws InterruptedException
+	 */
+	public void executeBatch(CommandBatch _batch, List<Target> _targets, String _tenant,
+							 Consumer<CommandResults> _sink) throws InterruptedException;
+
+	/**
+	 * Submit the Command as an Asynchronous Job
+	 * @param _command
+	 * @param _target Inventory Name (null = Configured Host)
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 */
+	public CommandJob submitCommand(String _command, String _target, String _tenant);
+
+	/**
+	 * Submit the Workflow (DAG of Commands) as an Asynchronous Job. The Job Status has
+	 * the Progress of every Node.
+	 *
+	 * @param _workflow
+	 * @param _tenant Caller (Fair Share Key of the Host Scheduler)
+	 * @return
+	 * @throws IllegalArgumentException if the Graph or a Target is invalid, or it has too many Nodes
+	 */
+	public CommandJob submitWorkflow(Workflow _workflow, String _tenant);
+
+	/**
+	 * Returns the Job (null if not found)
+	 * @param _referenceNo
+	 * @return
+	 */
+	public CommandJob getJob(String _referenceNo);
+
+	/**
+	 * Cancel the Job
+	 * @param _referenceNo
+	 * @return
+	 */
+	public boolean cancelJob(String _referenceNo);
+
+	/**
+	 * Replace the Command of a Queued Job
+	 * @param _referenceNo
+	 * @param _command
+	 * @return
+	 */
+	public boolean updateJob(String _referenceNo, String _command);
 }
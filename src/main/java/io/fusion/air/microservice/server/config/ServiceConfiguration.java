@@ -132,6 +132,143 @@ public class ServiceConfiguration implements Serializable {
 	@Value("${ssh.port:22}")
 	private int sshport;
 
+	@Value("${ssh.timeout.seconds:10}")
+	private long sshTimeoutSeconds;
+
+	// EXEC, SHELL or SENTINEL
+	@Value("${ssh.exec.mode:EXEC}")
+	private String sshExecMode;
+
+	// SSH Engine IO Workers (0 = SSHD Default)
+	@Value("${ssh.engine.nio.workers:0}")
+	private int sshNioWorkers;
+
+	// SSH Channel Window (0 = SSHD Default 2 MB). Caps the Output buffered per Channel.
+	@Value("${ssh.engine.window.kb:0}")
+	private long sshWindowKiloBytes;
+
+	// SSH Session Pool
+	@Value("${ssh.pool.max.per.key:8}")
+	private int sshPoolMaxPerKey;
+
+	@Value("${ssh.pool.max.total:64}")
+	private int sshPoolMaxTotal;
+
+	@Value("${ssh.pool.idle.seconds:300}")
+	private long sshPoolIdleSeconds;
+
+	@Value("${ssh.pool.max.lifetime.seconds:3600}")
+	private long sshPoolMaxLifetimeSeconds;
+
+	@Value("${ssh.pool.keepalive.seconds:30}")
+	private long sshPoolKeepAliveSeconds;
+
+	// Named Shell Sessions
+	@Value("${ssh.shell.idle.seconds:600}")
+	private long sshShellIdleSeconds;
+
+	@Value("${ssh.shell.max.sessions:100}")
+	private int sshShellMaxSessions;
+
+	// Asynchronous Command Jobs
+	@Value("${ssh.jobs.threads:16}")
+	private int sshJobsThreads;
+
+	@Value("${ssh.jobs.queue.size:256}")
+	private int sshJobsQueueSize;
+
+	@Value("${ssh.jobs.ttl.seconds:900}")
+	private long sshJobsTtlSeconds;
+
+	// Max Long Poll Wait for the Job Status
+	@Value("${ssh.status.max.wait.ms:30000}")
+	private long sshStatusMaxWaitMillis;
+
+	// Fleet Fan Out
+	@Value("${ssh.fleet.threads:64}")
+	private int sshFleetThreads;
+
+	@Value("${ssh.fleet.concurrency:32}")
+	private int sshFleetConcurrency;
+
+	@Value("${ssh.fleet.host.timeout.seconds:30}")
+	private long sshFleetHostTimeoutSeconds;
+
+	// Target Inventory (One Target per Line)
+	@Value("${ssh.inventory.file:./inventory.conf}")
+	private String sshInventoryFile;
+
+	// Regex of the Commands safe to share between identical concurrent Requests (Empty = None)
+	@Value("${ssh.coalesce.commands:}")
+	private String sshCoalesceCommands;
+
+	// Result Cache: pattern=ttlSeconds;pattern=ttlSeconds (Empty = None)
+	@Value("${ssh.cache.commands:}")
+	private String sshCacheCommands;
+
+	@Value("${ssh.cache.max.kb:16384}")
+	private long sshCacheMaxKiloBytes;
+
+	// WebSocket Terminal
+	@Value("${ssh.terminal.max.sessions:50}")
+	private int sshTerminalMaxSessions;
+
+	@Value("${ssh.terminal.pty.type:xterm-256color}")
+	private String sshTerminalPtyType;
+
+	@Value("${ssh.terminal.max.frame.kb:64}")
+	private int sshTerminalMaxFrameKiloBytes;
+
+	// Comma separated Origin Patterns (Empty = Same Origin only)
+	@Value("${ssh.terminal.allowed.origins:}")
+	private String sshTerminalAllowedOrigins;
+
+	// Output kept per Command (Head + Tail), the middle is counted and dropped
+	@Value("${ssh.capture.head.kb:256}")
+	private int sshCaptureHeadKiloBytes;
+
+	@Value("${ssh.capture.tail.kb:256}")
+	private int sshCaptureTailKiloBytes;
+
+	// Idle Capture Buffers kept for reuse
+	@Value("${ssh.capture.pool.size:32}")
+	private int sshCapturePoolSize;
+
+	// Full Output of the Jobs: Spill Directory (Empty = {java.io.tmpdir}/ssh-spool)
+	@Value("${ssh.spool.dir:}")
+	private String sshSpoolDirectory;
+
+	// Bytes kept in Memory before the Output spills to Disk
+	@Value("${ssh.spool.memory.kb:1024}")
+	private int sshSpoolMemoryKiloBytes;
+
+	// Max Output kept per Job (0 = No Limit)
+	@Value("${ssh.spool.max.mb:4096}")
+	private long sshSpoolMaxMegaBytes;
+
+	// Exec Channels open at once on one Session (Pipelined Batch, Server's MaxSessions)
+	@Value("${ssh.pipeline.channels:10}")
+	private int sshPipelineChannels;
+
+	// Workflow Nodes in flight per Host (Default)
+	@Value("${ssh.workflow.host.concurrency:4}")
+	private int sshWorkflowHostConcurrency;
+
+	// Max Nodes in a Workflow
+	@Value("${ssh.workflow.max.nodes:1000}")
+	private int sshWorkflowMaxNodes;
+
+	// Host Scheduler: Sessions at once per Host (Server's MaxStartups) and in Total
+	@Value("${ssh.scheduler.max.per.host:8}")
+	private int sshSchedulerMaxPerHost;
+
+	@Value("${ssh.scheduler.max.total:64}")
+	private int sshSchedulerMaxTotal;
+
+	// Max Wait for a Slot, beyond that the Request is rejected (429)
+	@Value("${ssh.scheduler.max.wait.ms:2000}")
+	private long sshSchedulerMaxWaitMillis;
+
 	@Value("${payment.gateway.host:localhost}")
 	private String paymentGWHost;
 	@Value("${payment.gateway.port:9091}")
@@ -365,4 +502,156 @@ public class ServiceConfiguration implements Serializable {
 	public int getSshPort() {
 		return sshport;
 	}
+
+	public long getSshTimeoutSeconds() {
+		return sshTimeoutSeconds;
+	}
+
+	public String getSshExecMode() {
+		return sshExecMode;
+	}
+
+	public int getSshNioWorkers() {
+		return sshNioWorkers;
+	}
+
+	public long getSshWindowKiloBytes() {
+		return sshWindowKiloBytes;
+	}
+
+	public int getSshPoolMaxPerKey() {
+		return sshPoolMaxPerKey;
+	}
+
+	public int getSshPoolMaxTotal() {
+		return sshPoolMaxTotal;
+	}
+
+	public long getSshPoolIdleSeconds() {
+		return sshPoolIdleSeconds;
+	}
+
+	public long getSshPoolMaxLifetimeSeconds() {
+		return sshPoolMaxLifetimeSeconds;
+	}
+
+	public long getSshPoolKeepAliveSeconds() {
+		return sshPoolKeepAliveSeconds;
+	}
+
+	public long getSshShellIdleSeconds() {
+		return sshShellIdleSeconds;
+	}
+
+	public int getSshShellMaxSessions() {
+		return sshShellMaxSessions;
+	}
+
+	public int getSshJobsThreads() {
+		return sshJobsThreads;
+	}
+
+	public int getSshJobsQueueSize() {
+		return sshJobsQueueSize;
+	}
+
+	public long getSshJobsTtlSeconds() {
+		return sshJobsTtlSeconds;
+	}
+
+	public long getSshStatusMaxWaitMillis() {
+		return sshStatusMaxWaitMillis;
+	}
+
+	public int getSshFleetThreads() {
+		return sshFleetThreads;
+	}
+
+	public int getSshFleetConcurrency() {
+		return sshFleetConcurrency;
+	}
+
+	public long getSshFleetHostTimeoutSeconds() {
+		return sshFleetHostTimeoutSeconds;
+	}
+
+	public String getSshInventoryFile() {
+		return sshInventoryFile;
+	}
+
+	public String getSshCoalesceCommands() {
+		return sshCoalesceCommands;
+	}
+
+	public String getSshCacheCommands() {
+		return sshCacheCommands;
+	}
+
+	public long getSshCacheMaxKiloBytes() {
+		return sshCacheMaxKiloBytes;
+	}
+
+	public int getSshTerminalMaxSessions() {
+		return sshTerminalMaxSessions;
+	}
+
+	public String getSshTerminalPtyType() {
+		return sshTerminalPtyType;
+	}
+
+	public int getSshTerminalMaxFrameKiloBytes() {
+		return sshTerminalMaxFrameKiloBytes;
+	}
+
+	public String getSshTerminalAllowedOrigins() {
+		return sshTerminalAllowedOrigins;
+	}
+
+	public int getSshCaptureHeadKiloBytes() {
+		return sshCaptureHeadKiloBytes;
+	}
+
+	public int getSshCaptureTailKiloBytes() {
+		return sshCaptureTailKiloBytes;
+	}
+
+	public int getSshCapturePoolSize() {
+		return sshCapturePoolSize;
+	}
+
+	public String getSshSpoolDirectory() {
+		return sshSpoolDirectory;
+	}
+
+	public int getSshSpoolMemoryKiloBytes() {
+		return sshSpoolMemoryKiloBytes;
+	}
+
+	public long getSshSpoolMaxMegaBytes() {
+		return sshSpoolMaxMegaBytes;
+	}
+
+	public int getSshPipelineChannels() {
+		return sshPipelineChannels;
+	}
+
+	public int getSshWorkflowHostConcurrency() {
+		return sshWorkflowHostConcurrency;
+	}
+
+	public int getSshWorkflowMaxNodes() {
+		return sshWorkflowMaxNodes;
+	}
+
+	public int getSshSchedulerMaxPerHost() {
+		return sshSchedulerMaxPerHost;
+	}
+
+	public int getSshSchedulerMaxTotal() {
+		return sshSchedulerMaxTotal;
+	}
+
+	public long getSshSchedulerMaxWaitMillis() {
+		return sshSchedulerMaxWaitMillis;
+	}
 }
@@ -0,0 +1,70 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.config;
+
+import io.fusion.air.microservice.adapters.controllers.TerminalWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * WebSocket Configuration (Terminal Bridge)
+ *
+ * @author arafkarsh
+ *
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+	@Autowired
+	private ServiceConfiguration serviceConfig;
+
+	@Autowired
+	private TerminalWebSocketHandler terminalWebSocketHandler;
+
+	/**
+	 * Register the Terminal Handler at {service.api.path}/terminal
+	 * @param registry
+	 */
+	@Override
+	public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+		WebSocketHandlerRegistration registration = registry.addHandler(terminalWebSocketHandler,
+				serviceConfig.getServiceApiPath() + "/terminal");
+		String origins = serviceConfig.getSshTerminalAllowedOrigins();
+		if(origins != null && !origins.trim().isEmpty()) {
+			registration.setAllowedOriginPatterns(origins.trim().split("\\s*,\\s*"));
+		}
+	}
+
+	/**
+	 * Caps the Frame Buffers, so a large Paste can't grow the Memory per Terminal
+	 * @return
+	 */
+	@Bean
+	public ServletServerContainerFactoryBean createWebSocketContainer() {
+		ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+		int frameBytes = serviceConfig.getSshTerminalMaxFrameKiloBytes() * 1024;
+		container.setMaxBinaryMessageBufferSize(frameBytes);
+		container.setMaxTextMessageBufferSize(frameBytes);
+		return container;
+	}
+}
@@ -15,8 +15,6 @@
  */
 package io.fusion.air.microservice.server.controller;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fusion.air.microservice.server.config.ConfigMap;
 import io.fusion.air.microservice.server.config.ServiceConfiguration;
 import io.fusion.air.microservice.server.config.ServiceHelp;
@@ -98,11 +96,6 @@ public class ConfigController extends AbstractController {
 	public ResponseEntity<ConfigMap> getConfigMap(
 	// public ResponseEntity<ServiceConfiguration> getConfigMap(
 			HttpServletRequest request) throws Exception {
-		//  log.info("Pass 1");
-		ObjectMapper om = new ObjectMapper()
-				.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-				.findAndRegisterModules();
-		//  log.info("Pass 2");
 		String json = serviceConfig.toJSONString();
 		//  log.info("Pass 3");
 		log.info(name()+"|Request to Get ServiceConfiguration .1. "+json);
@@ -0,0 +1,31 @@
+package io.fusion.air.microservice.utils;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.fusion.air.microservice.domain.core.CommandResults;
+
+/**
+ * Command Results Serializer - Streams the Results with the Generator (The Output is
+ * written straight from the Output Bytes, No Bean Introspection)
+ *
+ * @author arafkarsh
+ *
+ */
+public class CommandResultsJsonSerializer extends StdSerializer<CommandResults> {
+
+	private static final long serialVersionUID = 4735242849275956021L;
+
+	public CommandResultsJsonSerializer() {
+		super(CommandResults.class);
+	}
+
+	@Override
+	public void serialize(CommandResults value,
+			JsonGenerator gen,
+			SerializerProvider provider) throws IOException {
+		value.writeJSON(gen);
+	}
+}
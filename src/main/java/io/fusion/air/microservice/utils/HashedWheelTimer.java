@@ -0,0 +1,229 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Hashed Wheel Timer - O(1) Schedule and Cancel for large numbers of
+ * approximate Timeouts (Idle Expiry, TTL Eviction etc.)
+ *
+ * Timeouts are hashed into the Wheel Buckets by their Deadline Tick. One Worker
+ * Thread advances the Wheel every Tick and runs the expired Tasks. Tasks must be
+ * short and non-blocking.
+ *
+ * @author arafkarsh
+ *
+ */
+public final class HashedWheelTimer {
+
+	// Set Logger -> Lookup will automatically determine the class name.
+	private static final Logger log = getLogger(lookup().lookupClass());
+
+	private final long tickNanos;
+	private final List<Timeout>[] wheel;
+	private final int mask;
+	private final ConcurrentLinkedQueue<Timeout> pending;
+	private final AtomicInteger size;
+	private final Thread worker;
+	private final long startTime;
+	private volatile boolean running;
+
+	/**
+	 * Create the Timer
+	 *
+	 * @param _name Worker Thread Name
+	 * @param _tickDuration
+	 * @param _unit
+	 * @param _ticksPerWheel (rounded up to a Power of 2)
+	 */
+	@SuppressWarnings("unchecked")
+	public HashedWheelTimer(String _name, long _tickDuration, TimeUnit _unit, int _ticksPerWheel) {
+		int buckets = 1;
+		while(buckets < _ticksPerWheel) {
+			buckets <<= 1;
+		}
+		tickNanos	= Math.max(1, _unit.toNanos(_tickDuration));
+		wheel		= new List[buckets];
+		for(int x=0; x < buckets; x++) {
+			wheel[x] = new ArrayList<Timeout>();
+		}
+		mask		= buckets - 1;
+		pending		= new ConcurrentLinkedQueue<Timeout>();
+		size		= new AtomicInteger();
+		startTime	= System.nanoTime();
+		running		= true;
+		worker		= new Thread(this::run, _name);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Schedule the Task after the Delay
+	 *
+	 * @param _task
+	 * @param _delay
+	 * @param _unit
+	 * @return
+	 */
+	public Timeout newTimeout(Runnable _task, long _delay, TimeUnit _unit) {
+		if(!running) {
+			throw new IllegalStateException("Timer is stopped");
+		}
+		long deadline = System.nanoTime() - startTime + _unit.toNanos(Math.max(0, _delay));
+		Timeout timeout = new Timeout(_task, deadline);
+		size.incrementAndGet();
+		pending.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Returns the Number of Scheduled Timeouts
+	 * @return
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Stop the Timer. Pending Timeouts are dropped.
+	 */
+	public void stop() {
+		running = false;
+		worker.interrupt();
+	}
+
+	/**
+	 * Worker Loop
+	 */
+	private void run() {
+		long tick = 0;
+		while(running) {
+			long deadline = tickNanos * (tick + 1);
+			long sleepNanos = deadline - (System.nanoTime() - startTime);
+			if(sleepNanos > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				} catch (InterruptedException e) {
+					if(!running) {
+						return;
+					}
+				}
+				continue;
+			}
+			transferPending(tick);
+			expire(wheel[(int) (tick & mask)], deadline);
+			tick++;
+		}
+	}
+
+	/**
+	 * Move the newly Scheduled Timeouts into their Buckets
+	 * @param _currentTick
+	 */
+	private void transferPending(long _currentTick) {
+		Timeout timeout;
+		while((timeout = pending.poll()) != null) {
+			if(timeout.isCancelled()) {
+				size.decrementAndGet();
+				continue;
+			}
+			long ticks = Math.max(timeout.deadline / tickNanos, _currentTick);
+			timeout.remainingRounds = (ticks - _currentTick) / wheel.length;
+			wheel[(int) (ticks & mask)].add(timeout);
+		}
+	}
+
+	/**
+	 * Run the Expired Timeouts in the Bucket
+	 * @param _bucket
+	 * @param _deadline
+	 */
+	private void expire(List<Timeout> _bucket, long _deadline) {
+		Iterator<Timeout> iterator = _bucket.iterator();
+		while(iterator.hasNext()) {
+			Timeout timeout = iterator.next();
+			if(timeout.isCancelled()) {
+				iterator.remove();
+				size.decrementAndGet();
+			} else if(timeout.remainingRounds <= 0 && timeout.deadline <= _deadline) {
+				iterator.remove();
+				size.decrementAndGet();
+				timeout.expire();
+			} else {
+				timeout.remainingRounds--;
+			}
+		}
+	}
+
+	/**
+	 * Timeout Handle
+	 */
+	public static final class Timeout {
+
+		private static final int ST_INIT = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state;
+		// Worker Thread only
+		private long remainingRounds;
+
+		private Timeout(Runnable _task, long _deadline) {
+			task		= _task;
+			deadline	= _deadline;
+			state		= new AtomicInteger(ST_INIT);
+		}
+
+		/**
+		 * Cancel the Timeout
+		 * @return True if the Task will not run
+		 */
+		public boolean cancel() {
+			return state.compareAndSet(ST_INIT, ST_CANCELLED);
+		}
+
+		public boolean isCancelled() {
+			return state.get() == ST_CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state.get() == ST_EXPIRED;
+		}
+
+		private void expire() {
+			if(state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+				try {
+					task.run();
+				} catch (Throwable t) {
+					log.error("Timer Task failed: "+t.getMessage());
+				}
+			}
+		}
+	}
+}
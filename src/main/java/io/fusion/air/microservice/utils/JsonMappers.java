@@ -0,0 +1,153 @@
+/**
+ * (C) Copyright 2021 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * JSON Mappers - The one Object Mapper of the Service (also the Spring Bean) and the
+ * cached Object Writers per Type.
+ *
+ * Building an Object Mapper and scanning for the Modules costs far more than the
+ * Serialization itself, and a new Mapper starts with an empty Serializer Cache.
+ * An Object Writer for a Type resolves the Root Serializer once and is immutable,
+ * so it's shared across the Threads.
+ *
+ * The Binary Formats (CBOR / Smile) get their own Mappers with the same Settings
+ * (Content Negotiation on the Accept Header).
+ *
+ * @author arafkarsh
+ *
+ */
+public final class JsonMappers {
+
+	// Set Logger -> Lookup will automatically determine the class name.
+	private static final Logger log = getLogger(lookup().lookupClass());
+
+	private static final ObjectMapper MAPPER = configure(new ObjectMapper());
+	private static final CBORMapper CBOR_MAPPER = configure(new CBORMapper());
+	// Raw Binary (Default 7 bit Encoding adds 1/7 to the Output Bytes)
+	private static final SmileMapper SMILE_MAPPER = configure(new SmileMapper(
+			SmileFactory.builder().disable(SmileGenerator.Feature.ENCODE_BINARY_AS_7BIT).build()));
+
+	private static final ConcurrentHashMap<Class<?>, ObjectWriter> WRITERS =
+			new ConcurrentHashMap<Class<?>, ObjectWriter>();
+	private static final ConcurrentHashMap<Class<?>, ObjectWriter> STREAM_WRITERS =
+			new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
+	private JsonMappers() {
+	}
+
+	/**
+	 * Returns the Shared Object Mapper (Don't reconfigure it after the Start)
+	 * @return
+	 */
+	public static ObjectMapper mapper() {
+		return MAPPER;
+	}
+
+	/**
+	 * Returns the Shared CBOR Mapper (application/cbor)
+	 * @return
+	 */
+	public static CBORMapper cborMapper() {
+		return CBOR_MAPPER;
+	}
+
+	/**
+	 * Returns the Shared Smile Mapper (application/x-jackson-smile)
+	 * @return
+	 */
+	public static SmileMapper smileMapper() {
+		return SMILE_MAPPER;
+	}
+
+	/**
+	 * Returns the Cached Object Writer for the Type
+	 * @param _type
+	 * @return
+	 */
+	public static ObjectWriter writerFor(Class<?> _type) {
+		ObjectWriter writer = WRITERS.get(_type);
+		return (writer != null) ? writer : WRITERS.computeIfAbsent(_type, MAPPER::writerFor);
+	}
+
+	/**
+	 * Returns the Cached Object Writer for the Type that leaves the Output Stream open
+	 * (Ex. NDJSON - many Values on one Stream)
+	 * @param _type
+	 * @return
+	 */
+	public static ObjectWriter streamWriterFor(Class<?> _type) {
+		ObjectWriter writer = STREAM_WRITERS.get(_type);
+		return (writer != null) ? writer : STREAM_WRITERS.computeIfAbsent(_type,
+				type -> writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+	}
+
+	/**
+	 * Pre Warm the Writers (Serializers are resolved and cached at the Start, not on
+	 * the first Request)
+	 * @param _types
+	 */
+	public static void warmUp(Class<?>... _types) {
+		for(Class<?> type : _types) {
+			writerFor(type);
+		}
+		log.info("JSON Writers ready for "+WRITERS.size()+" Types, Modules = "+MAPPER.getRegisteredModuleIds());
+	}
+
+	/**
+	 * Same Settings for all the Formats
+	 * @param _mapper
+	 * @return
+	 */
+	private static <T extends ObjectMapper> T configure(T _mapper) {
+		_mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		_mapper.findAndRegisterModules();
+		return _mapper;
+	}
+
+	/**
+	 * Returns the JSON String ("" if the Object is null or can't be serialized)
+	 * @param _object
+	 * @return
+	 */
+	public static String toJsonString(Object _object) {
+		if(_object == null) {
+			return "";
+		}
+		try {
+			return writerFor(_object.getClass()).writeValueAsString(_object);
+		} catch (JsonProcessingException e) {
+			log.error("Unable to serialize "+_object.getClass().getName()+": "+e.getMessage());
+		}
+		return "";
+	}
+}
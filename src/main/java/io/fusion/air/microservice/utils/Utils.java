@@ -18,9 +18,6 @@ package io.fusion.air.microservice.utils;
 
 import java.util.stream.Stream;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fusion.air.microservice.server.config.ServiceConfiguration;
 
 /**
@@ -36,18 +33,7 @@ public final class Utils {
 	 * @return
 	 */
 	public static String toJsonString(Object _object) {
-		if(_object == null) {
-			return "";
-		}
-		try {
-			return new ObjectMapper()
-					.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
-					.findAndRegisterModules()
-					.writeValueAsString(_object);
-		} catch (JsonProcessingException e) {
-			e.printStackTrace();
-		}
-		return "";
+		return JsonMappers.toJsonString(_object);
 	}
 	
 	/**